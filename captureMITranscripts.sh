@@ -0,0 +1,37 @@
+#!/bin/bash
+
+#Captures GDB's MI replies to -symbol-info-functions, -stack-list-variables and
+#-thread-info on a native image executable, stopped at a breakpoint, as the
+#transcripts MIParserBenchmark parses
+while getopts e:b: flag
+do
+    case "${flag}" in
+        e) NATIVE_EXEC=${OPTARG};;
+        b) BREAKPOINT=${OPTARG};;
+        *) ;;
+    esac
+done
+
+NATIVE_EXEC=${NATIVE_EXEC:-$PWD/apps/debugeeImg}
+BREAKPOINT=${BREAKPOINT:-main}
+OUT=$PWD/src/test/resources/mi
+TRANSCRIPT=$(mktemp)
+mkdir -p "$OUT"
+
+echo "NATIVE_EXEC: $NATIVE_EXEC";
+echo "BREAKPOINT: $BREAKPOINT";
+#Without mi-async GDB reads the next command only once the inferior stopped
+gdb -q --interpreter=mi "$NATIVE_EXEC" > "$TRANSCRIPT" <<COMMANDS
+-break-insert $BREAKPOINT
+-exec-run
+1-symbol-info-functions
+2-stack-list-variables --all-values
+3-thread-info
+-gdb-exit
+COMMANDS
+
+grep '^1\^' "$TRANSCRIPT" > "$OUT/symbol-info-functions.mi"
+grep '^2\^' "$TRANSCRIPT" > "$OUT/stack-list-variables.mi"
+grep '^3\^' "$TRANSCRIPT" > "$OUT/thread-info.mi"
+rm "$TRANSCRIPT"
+ls -l "$OUT"
@@ -16,6 +16,8 @@
  *******************************************************************************/
 package gdb.gdb;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
@@ -42,11 +44,41 @@ public class GDBTypeParser {
 	private static final int PARENS = 1;
 	private static final int BRACKETS = 2;
 
+	private static final Pattern CONST = Pattern.compile("\\bconst\\b"); //$NON-NLS-1$
+	private static final Pattern VOLATILE = Pattern.compile("\\bvolatile\\b"); //$NON-NLS-1$
+
+	/**
+	 * Types parsed so far by type string. The same few types come back for every
+	 * variable, so they are only parsed once; the types are shared and never change
+	 * once parsed. Only the most recently used ones are kept.
+	 */
+	private static final int MAX_CACHED_TYPES = Integer.getInteger("native.gdb.type.cache", 256); //$NON-NLS-1$
+	private static final Map<String, ParsedType> PARSED_TYPES = new LinkedHashMap<String, ParsedType>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ParsedType> eldest) {
+			return size() > MAX_CACHED_TYPES;
+		}
+	};
+
+	/**
+	 * The result of parsing one type string.
+	 */
+	private static class ParsedType {
+		final GDBDerivedType derivedType;
+		final GDBType genericType;
+		final String name;
+
+		ParsedType(GDBDerivedType derivedType, GDBType genericType, String name) {
+			this.derivedType = derivedType;
+			this.genericType = genericType;
+			this.name = name;
+		}
+	}
+
 	private String line;
 	private int index;
 	private int tokenType;
 	private String token;
-	private String dataType;
 	private String name;
 	private GDBDerivedType gdbDerivedType;
 	private GDBType genericType;
@@ -64,10 +96,30 @@ public class GDBTypeParser {
 
 	public GDBType parse(String gdbTypeString) {
 		// Sanity.
-		String s = (gdbTypeString == null) ? "" : gdbTypeString; //$NON-NLS-1$
+		String key = (gdbTypeString == null) ? "" : gdbTypeString; //$NON-NLS-1$
+
+		// Subclasses may create their own derived types
+		boolean shared = getClass() == GDBTypeParser.class;
+		if (shared) {
+			ParsedType parsed;
+			synchronized (PARSED_TYPES) {
+				parsed = PARSED_TYPES.get(key);
+			}
+			if (parsed != null) {
+				gdbDerivedType = parsed.derivedType;
+				genericType = parsed.genericType;
+				name = parsed.name;
+				return getGDBType();
+			}
+		}
 
-		s = Pattern.compile("\\bconst\\b").matcher(s).replaceAll(""); //$NON-NLS-1$//$NON-NLS-2$
-		s = Pattern.compile("\\bvolatile\\b").matcher(s).replaceAll(""); //$NON-NLS-1$//$NON-NLS-2$
+		String s = key;
+		if (s.contains("const")) { //$NON-NLS-1$
+			s = CONST.matcher(s).replaceAll(""); //$NON-NLS-1$
+		}
+		if (s.contains("volatile")) { //$NON-NLS-1$
+			s = VOLATILE.matcher(s).replaceAll(""); //$NON-NLS-1$
+		}
 		s = s.trim();
 
 		// Initialize.
@@ -75,15 +127,16 @@ public class GDBTypeParser {
 		index = 0;
 		tokenType = -1;
 		token = ""; //$NON-NLS-1$
-		dataType = ""; //$NON-NLS-1$
 		name = ""; //$NON-NLS-1$
 		gdbDerivedType = null;
 		genericType = null;
 
 		// Fetch the datatype.
+		StringBuilder names = new StringBuilder();
 		while (getToken() == NAME) {
-			dataType += " " + token; //$NON-NLS-1$
+			names.append(' ').append(token);
 		}
+		String dataType = names.toString();
 
 		// Hack for GDB, the typename can be something like
 		// class A : public B, C { ... } *
@@ -102,6 +155,11 @@ public class GDBTypeParser {
 
 		// Start the recursive parser.
 		dcl(tokenType);
+		if (shared) {
+			synchronized (PARSED_TYPES) {
+				PARSED_TYPES.put(key, new ParsedType(gdbDerivedType, genericType, name));
+			}
+		}
 		return getGDBType();
 	}
 
@@ -165,15 +223,15 @@ public class GDBTypeParser {
 		return (gdbType != null) ? gdbType.getType() : GDBType.GENERIC;
 	}
 
-	public class GDBType {
+	public static class GDBType {
 		public static final int GENERIC = 0;
 		public static final int POINTER = 1;
 		public static final int REFERENCE = 2;
 		public static final int ARRAY = 3;
 		public static final int FUNCTION = 4;
 
-		String nameType;
-		int type;
+		private final String nameType;
+		private final int type;
 
 		public GDBType(String n) {
 			this(n, 0);
@@ -206,9 +264,9 @@ public class GDBTypeParser {
 		}
 	}
 
-	public class GDBDerivedType extends GDBType {
-		int dimension;
-		GDBType child;
+	public static class GDBDerivedType extends GDBType {
+		private final int dimension;
+		private GDBType child;
 
 		public GDBDerivedType(GDBType c, int i) {
 			this(c, i, 0);
@@ -224,7 +282,10 @@ public class GDBTypeParser {
 			return dimension;
 		}
 
-		public void setChild(GDBType c) {
+		/**
+		 * Only called while the type is parsed, the types are shared afterwards.
+		 */
+		void setChild(GDBType c) {
 			child = c;
 		}
 
@@ -282,8 +343,10 @@ public class GDBTypeParser {
 	// [a-zA-Z0-9]
 	// GDB hack accept ':' ',' part of the GDB hacks
 	// when doing ptype gdb returns "class A : public C { ..}"
+	// and '.' '$' of the Java class names in native image debug info, "java.lang.String *"
 	boolean isCIdentifierPart(int c) {
-		if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_' || c == ':') {
+		if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_' || c == ':'
+				|| c == '.' || c == '$') {
 			return true;
 		}
 		return false;
@@ -337,21 +400,21 @@ public class GDBTypeParser {
 				token = "()"; //$NON-NLS-1$
 				tokenType = PARENS;
 			} else if (isCIdentifierStart(c)) {
+				int start = index - 1;
 				int i = 0;
-				token += (char) c;
 				while (i == 0 && c != ')') {
 					if (c == EOF) {
 						// Unbalanced parantheses.
 						break;
 					}
 					c = getch();
-					token += (char) c;
 					if (c == '(') {
 						++i;
 					} else if (c == ')') {
 						--i;
 					}
 				}
+				token = line.substring(start, index);
 				tokenType = PARENS;
 			} else {
 				ungetch();
@@ -359,20 +422,20 @@ public class GDBTypeParser {
 			}
 
 		} else if (c == '[') {
+			int start = index;
 			while ((c = getch()) != ']' && c != EOF) {
-				token += (char) c;
 			}
+			token = line.substring(start, c == ']' ? index - 1 : index);
 			tokenType = BRACKETS;
 		} else if (isCIdentifierStart(c)) {
-			StringBuilder sb = new StringBuilder();
-			sb.append((char) c);
+			int start = index - 1;
 			while (isCIdentifierPart((c = getch())) && c != EOF) {
-				sb.append((char) c);
 			}
 			if (c == '<') {
 				// Swallow template args in types like "class foobar<A,B> : public C {..} *"
 				// FIXME: if the bracket is not terminate do we throw exception?
-				sb.append((char) c);
+				StringBuilder sb = new StringBuilder(line.length() - start);
+				sb.append(line, start, index);
 				int count = 1;
 				do {
 					c = getch();
@@ -385,10 +448,13 @@ public class GDBTypeParser {
 						sb.append((char) c);
 					}
 				} while (count > 0 && c != EOF);
-			} else if (c != EOF) {
-				ungetch();
+				token = sb.toString();
+			} else {
+				if (c != EOF) {
+					ungetch();
+				}
+				token = line.substring(start, index);
 			}
-			token = sb.toString();
 			tokenType = NAME;
 		} else if (c == '{') {
 			// Swallow gdb sends things like "struct foobar {..} *"
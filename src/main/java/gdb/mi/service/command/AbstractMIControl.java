@@ -31,14 +31,18 @@
 package gdb.mi.service.command;
 
 import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.MICommandBuffer;
 import gdb.mi.service.command.commands.RawCommand;
 import gdb.mi.service.command.output.*;
 
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Base implementation of an MI control service.  It provides basic handling
@@ -48,6 +52,17 @@ import java.util.concurrent.RejectedExecutionException;
  */
 public abstract class AbstractMIControl {
 	private static final String MI_TRACE_IDENTIFIER = "[MI]"; //$NON-NLS-1$
+	/**
+	 *   Whether the MI output read from GDB, and commands it did not answer in time,
+	 *   are echoed on stdout.
+	 */
+	private static final boolean MI_TRACE = Boolean.getBoolean("native.gdb.mi.trace"); //$NON-NLS-1$
+	/**
+	 *   Whether results are parsed lazily, see {@link MIParser#setLazy(boolean)}. Off by
+	 *   default: lazy records keep a String copy of their whole line, and are no faster
+	 *   to parse on large results of which every entry is read.
+	 */
+	private static final boolean MI_LAZY = Boolean.getBoolean("native.gdb.mi.lazy"); //$NON-NLS-1$
 	private static final int NUMBER_CONCURRENT_COMMANDS = 3;
 
 	/*
@@ -55,14 +70,102 @@ public abstract class AbstractMIControl {
 	 */
 	private TxThread fTxThread;
 	private RxThread fRxThread;
+	private ParseThread fParseThread;
+	private DispatchThread fDispatchThread;
 	private ErrorThread fErrorThread;
 
+	/**
+	 *   Queues between the reader, parse and dispatch stages of the receive pipeline.
+	 */
+	private static final int RX_QUEUE_CAPACITY = 1024;
+
+	/**
+	 *   Most stream records kept as the output of a single CLI command.
+	 */
+	private static final int MAX_ACCUMULATED_STREAM_RECORDS = 16384;
+	/**
+	 *   Largest line copy handed back to the reader for reuse, larger ones are dropped.
+	 */
+	private static final int MAX_POOLED_LINE = 64 * 1024;
+	private final SpscRingBuffer<MIRecordReader.Line> fParseQueue = new SpscRingBuffer<>(RX_QUEUE_CAPACITY);
+	/**
+	 *   Line copies the parse stage is done with, for the reader to fill again.
+	 */
+	private final SpscRingBuffer<MIRecordReader.Line> fFreeLines = new SpscRingBuffer<>(RX_QUEUE_CAPACITY);
+	private final SpscRingBuffer<Object> fDispatchQueue = new SpscRingBuffer<>(RX_QUEUE_CAPACITY);
+
 	private final BlockingQueue<CommandHandle> fTxCommands = new LinkedBlockingQueue<>();
 	private final Map<Integer, CommandHandle> fRxCommands = Collections
 			.synchronizedMap(new HashMap<Integer, CommandHandle>());
 
 	private Map<Integer, MIInfo> fReplyPackets = Collections
 		.synchronizedMap(new HashMap<Integer, MIInfo>());
+
+	/**
+	 *   Commands which have been queued but not answered yet, by token id.
+	 */
+	private final Map<Integer, CommandHandle> fPendingCommands = Collections
+			.synchronizedMap(new HashMap<Integer, CommandHandle>());
+
+	/**
+	 *   Commands which were cancelled after being handed to the TX thread, by token.
+	 *   A late reply for one of these tokens is discarded. GDB answers commands in the
+	 *   order they were sent, so a command is dropped from here as well once a command
+	 *   sent after it was answered, as its reply will not come anymore.
+	 */
+	private final Map<Integer, CommandHandle> fCancelledTokens = Collections
+			.synchronizedMap(new HashMap<Integer, CommandHandle>());
+	/**
+	 *   Number of commands written to GDB so far, only updated by the TX thread.
+	 */
+	private long fSentCommands = 0;
+
+	/**
+	 *   Read-only commands which are queued or on the wire, by command text. An identical
+	 *   command issued meanwhile attaches to the pending one instead of being sent again.
+	 */
+	private final Map<String, CommandHandle> fInFlightQueries = new HashMap<>();
+	private final AtomicLong fCollapsedCommands = new AtomicLong();
+
+	/**
+	 *   Results of read-only commands completed during the current stop epoch, by command
+	 *   text. The epoch advances whenever a thread resumes or stops, or the bridge sends
+	 *   a command which may modify the target, and the cache is emptied then. Nothing is
+	 *   cached while any thread may be running: in non-stop mode, the threads still
+	 *   running may change the memory the stopped ones are inspected through.
+	 *   Commands which only update variable objects advance a separate epoch, which
+	 *   only the results of variable object queries depend on.
+	 */
+	private static final int MAX_CACHED_RESPONSES = 1024;
+	private final Map<String, MIInfo> fResponseCache = new LinkedHashMap<String, MIInfo>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, MIInfo> eldest) {
+			return size() > MAX_CACHED_RESPONSES;
+		}
+	};
+	private static final String VAR_OBJ_PREFIX = "-var-"; //$NON-NLS-1$
+	private long fStopEpoch = 0;
+	private long fVarObjEpoch = 0;
+	private boolean fTargetRunning = false;
+	private final AtomicLong fCacheHits = new AtomicLong();
+
+	/**
+	 *   Absolute deadline (System.nanoTime()) of the request being served by the calling thread.
+	 */
+	private final ThreadLocal<long[]> fRequestDeadline = new ThreadLocal<>();
+
+	/**
+	 *   GDB without inferior which static commands are routed to, if any.
+	 */
+	private AbstractMIControl fStaticControl;
+	/**
+	 *   Second MI channel of this GDB which bulk queries are routed to, if any.
+	 */
+	private AbstractMIControl fBulkControl;
+	/**
+	 *   Control each routed command not answered yet was sent to, by token.
+	 */
+	private final Map<Integer, AbstractMIControl> fRoutedTokens = new ConcurrentHashMap<>();
 	private List<Listener> fEventProcessors = new ArrayList<>();
 	/**
 	 *   Current command which have not been handed off to the backend yet.
@@ -107,21 +210,90 @@ public abstract class AbstractMIControl {
 
 		fTxThread = new TxThread(outStream);
 		fRxThread = new RxThread(inStream);
+		fParseThread = new ParseThread();
+		fDispatchThread = new DispatchThread();
 
 		if (errorStream != null) {
 			fErrorThread = new ErrorThread(errorStream);
 		}
 
 		fTxThread.start();
+		fDispatchThread.start();
+		fParseThread.start();
 		fRxThread.start();
 		if (fErrorThread != null) {
 			fErrorThread.start();
 		}
 	}
 
+	/**
+	 * Stops the threads started by {@link #startCommandProcessing}. A thread blocked
+	 * reading a stream which ignores interrupts only stops once the stream is closed.
+	 */
+	public void stopCommandProcessing() {
+		for (Thread thread : new Thread[] { fTxThread, fRxThread, fParseThread, fDispatchThread, fErrorThread }) {
+			if (thread != null) {
+				thread.interrupt();
+			}
+		}
+	}
+
 	public CommandHandle queueCommand(int id, final MICommand<MIInfo> miCommand) {
+		AbstractMIControl route = getRoute(miCommand);
+		if (route != null) {
+			fRoutedTokens.put(id, route);
+			return route.queueCommand(id, miCommand);
+		}
 
-		final CommandHandle handle = new CommandHandle(id, miCommand);
+		String key = null;
+		long epoch;
+		long varObjEpoch;
+		if (miCommand.isReadOnly() && miCommand.getResultVisitor() == null) {
+			key = miCommand.constructCommand();
+			MIInfo cached;
+			synchronized (fResponseCache) {
+				epoch = fStopEpoch;
+				varObjEpoch = fVarObjEpoch;
+				cached = fTargetRunning ? null : fResponseCache.get(key);
+			}
+			if (cached != null) {
+				// Still valid for this stop, no need to ask GDB again
+				fCacheHits.incrementAndGet();
+				addResponse(id, cached);
+				return new CommandHandle(id, miCommand, key, epoch, varObjEpoch);
+			}
+			synchronized (fInFlightQueries) {
+				CommandHandle inFlight = fInFlightQueries.get(key);
+				if (inFlight != null && inFlight.isCurrent(epoch, varObjEpoch) && inFlight.attach(id)) {
+					// Identical query already pending, share its result
+					fPendingCommands.put(id, inFlight);
+					fCollapsedCommands.incrementAndGet();
+					return inFlight;
+				}
+			}
+		} else if (miCommand.isVarObjUpdate()) {
+			// Only what was seen of variable objects is stale
+			synchronized (fResponseCache) {
+				epoch = fStopEpoch;
+				varObjEpoch = advanceVarObjEpoch();
+			}
+		} else {
+			// The command may change the state of the target, results seen so far are stale
+			synchronized (fResponseCache) {
+				epoch = advanceStopEpoch();
+				varObjEpoch = fVarObjEpoch;
+			}
+		}
+
+		final CommandHandle handle = new CommandHandle(id, miCommand, key, epoch, varObjEpoch);
+		if (!(miCommand instanceof RawCommand)) {
+			fPendingCommands.put(id, handle);
+		}
+		if (key != null) {
+			synchronized (fInFlightQueries) {
+				fInFlightQueries.put(key, handle);
+			}
+		}
 
 		// If the command control stopped processing commands, just return an error immediately.
 			/*
@@ -130,7 +302,9 @@ public abstract class AbstractMIControl {
 			 *  existing commands on a state change. So we add it to the waiting list and let
 			 *  the user know they can now work with this item if need be.
 			 */
-			fCommandQueue.add(handle);
+			synchronized (fCommandQueue) {
+				fCommandQueue.add(handle);
+			}
 
 			if (fRxCommands.size() < NUMBER_CONCURRENT_COMMANDS) {
 				processNextQueuedCommand();
@@ -139,17 +313,221 @@ public abstract class AbstractMIControl {
 		return handle;
 	}
 
+	/**
+	 * Returns how many commands were answered with the result of an identical
+	 * command already in flight, instead of being sent to GDB.
+	 */
+	public long getCollapsedCommandCount() {
+		return fCollapsedCommands.get();
+	}
+
+	/**
+	 * Returns how many read-only commands were answered from the stop epoch cache.
+	 */
+	public long getCacheHitCount() {
+		return fCacheHits.get();
+	}
+
+	/**
+	 * Routes static commands, see {@link MICommand#isStatic()}, to the given control.
+	 * It is meant to drive a second GDB with the same executable but no inferior,
+	 * so that long symbol scans overlap with run control and stack inspection
+	 * instead of holding them up.
+	 */
+	public void setStaticControl(AbstractMIControl control) {
+		fStaticControl = control;
+	}
+
+	/**
+	 * Routes bulk queries, see {@link MICommand#isBulkQuery()}, to the given control.
+	 * It is meant to drive a second MI channel of the same GDB, opened with
+	 * {@code new-ui}, so that large stack and thread listings do not hold up run
+	 * control on this channel. Events are only processed on this channel; the stop
+	 * epoch of the given control follows the one of this control.
+	 */
+	public void setBulkControl(AbstractMIControl control) {
+		fBulkControl = control;
+	}
+
+	/**
+	 * Returns the control the given command is sent to instead of this one, or null.
+	 */
+	private AbstractMIControl getRoute(MICommand<MIInfo> miCommand) {
+		if (fStaticControl != null && miCommand.isStatic()) {
+			return fStaticControl;
+		}
+		if (fBulkControl != null && miCommand.isBulkQuery()) {
+			return fBulkControl;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns how many lines read from GDB are waiting to be parsed.
+	 */
+	public int getParseQueueDepth() {
+		return fParseQueue.size();
+	}
+
+	/**
+	 * Returns the highest number of lines that were waiting to be parsed at once.
+	 */
+	public int getParseQueueMaxDepth() {
+		return fParseQueue.getMaxDepth();
+	}
+
+	/**
+	 * Returns how many parsed records are waiting to be dispatched.
+	 */
+	public int getDispatchQueueDepth() {
+		return fDispatchQueue.size();
+	}
+
+	/**
+	 * Returns the highest number of parsed records that were waiting to be dispatched at once.
+	 */
+	public int getDispatchQueueMaxDepth() {
+		return fDispatchQueue.getMaxDepth();
+	}
+
+	/**
+	 * Starts a new stop epoch after a thread resumed or stopped, dropping all cached
+	 * query results.
+	 *
+	 * @param running whether any thread may be running now; nothing is cached while
+	 *                one is, in non-stop mode as well
+	 */
+	public void advanceStopEpoch(boolean running) {
+		synchronized (fResponseCache) {
+			fTargetRunning = running;
+			advanceStopEpoch();
+		}
+	}
+
+	private long advanceStopEpoch() {
+		synchronized (fResponseCache) {
+			fResponseCache.clear();
+			if (fBulkControl != null) {
+				// Same inferior, so its cached results are just as stale
+				fBulkControl.advanceStopEpoch(fTargetRunning);
+			}
+			return ++fStopEpoch;
+		}
+	}
+
+	/**
+	 * Drops the cached results of variable object queries.
+	 */
+	private long advanceVarObjEpoch() {
+		synchronized (fResponseCache) {
+			fResponseCache.keySet().removeIf(key -> key.startsWith(VAR_OBJ_PREFIX));
+			return ++fVarObjEpoch;
+		}
+	}
+
+	/**
+	 * Remembers the result of a read-only command, unless the stop epoch it was sent in is over.
+	 */
+	private void cacheResponse(CommandHandle handle, MIInfo result) {
+		if (handle.getKey() != null && result.isDone()) {
+			synchronized (fResponseCache) {
+				if (!fTargetRunning && handle.isCurrent(fStopEpoch, fVarObjEpoch)) {
+					fResponseCache.put(handle.getKey(), result);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops sharing the result of the given query with commands queued from now on.
+	 */
+	private void retireQuery(CommandHandle handle) {
+		if (handle.getKey() != null) {
+			synchronized (fInFlightQueries) {
+				fInFlightQueries.remove(handle.getKey(), handle);
+			}
+		}
+	}
+
 	private void processNextQueuedCommand() {
-		if (!fCommandQueue.isEmpty()) {
-			final CommandHandle handle = fCommandQueue.remove(0);
-			if (handle != null) {
-				fTxCommands.add(handle);
+		CommandHandle handle = null;
+		synchronized (fCommandQueue) {
+			if (!fCommandQueue.isEmpty()) {
+				handle = fCommandQueue.remove(0);
 			}
 		}
+		if (handle != null) {
+			fTxCommands.add(handle);
+		}
+	}
+
+	/**
+	 * Cancels the command with token ID id. A command still waiting in the queue is
+	 * simply dropped; otherwise the token is remembered so that a late reply from
+	 * GDB is discarded instead of being stored forever.
+	 *
+	 * @return true if the command was still pending
+	 */
+	public boolean cancelCommand(int id) {
+		AbstractMIControl route = fRoutedTokens.remove(id);
+		if (route != null) {
+			return route.cancelCommand(id);
+		}
+		CommandHandle handle = fPendingCommands.remove(id);
+		if (handle == null) {
+			return false;
+		}
+		if (!handle.detach(id)) {
+			// Other callers still wait for this command
+			synchronized (fReplyPackets) {
+				removeResponse(id);
+			}
+			return true;
+		}
+		retireQuery(handle);
+		boolean removed;
+		synchronized (fCommandQueue) {
+			removed = fCommandQueue.remove(handle);
+		}
+		if (!removed) {
+			removed = fTxCommands.remove(handle);
+		}
+		int tokenId = handle.getTokenId();
+		if (!removed && !(handle.getCommand() instanceof RawCommand)) {
+			fCancelledTokens.put(tokenId, handle);
+			if (fRxCommands.remove(tokenId) != null) {
+				processNextQueuedCommand();
+			}
+		}
+		synchronized (fReplyPackets) {
+			removeResponse(id);
+		}
+		return true;
+	}
+
+	/**
+	 * Sets a deadline, relative to now, shared by every response the calling thread waits
+	 * for until {@link #endRequest()}. Used to bound all the MI round trips needed to serve
+	 * one JDWP command.
+	 */
+	public void beginRequest(long timeout) {
+		fRequestDeadline.set(new long[] { System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout), 0 });
+	}
+
+	/**
+	 * Clears the deadline set by {@link #beginRequest(long)}.
+	 *
+	 * @return true if a response timed out while the deadline was in effect
+	 */
+	public boolean endRequest() {
+		long[] deadline = fRequestDeadline.get();
+		fRequestDeadline.remove();
+		return deadline != null && deadline[1] != 0;
 	}
 
 	private void addResponse(int id, MIInfo response) {
 		synchronized (fReplyPackets) {
+			fPendingCommands.remove(id);
 			fReplyPackets.put(id, response);
 			fReplyPackets.notifyAll();
 		}
@@ -160,13 +538,25 @@ public abstract class AbstractMIControl {
 	}
 
 	/**
-	 * Returns a response for the command with token ID id
+	 * Returns a response for the command with token ID id. The wait is bounded by timeToWait
+	 * and by the deadline of the current request, if any. When it expires the command is
+	 * cancelled and an error response is returned, so callers never see null for a command
+	 * they queued.
 	 */
 	public MIInfo getResponse(int id, long timeToWait) {
+		AbstractMIControl route = fRoutedTokens.get(id);
+		if (route != null) {
+			return getRoutedResponse(route, id, timeToWait);
+		}
 		MIInfo response = null;
-		long remainingTime = timeToWait;
+		long[] deadline = fRequestDeadline.get();
+		long timeBeforeWait = System.nanoTime();
+		long waitDeadline = timeBeforeWait + TimeUnit.MILLISECONDS.toNanos(timeToWait);
+		if (deadline != null && deadline[0] - waitDeadline < 0) {
+			waitDeadline = deadline[0];
+		}
 		synchronized (fReplyPackets) {
-			final long timeBeforeWait = System.currentTimeMillis();
+			long remainingTime = waitDeadline - timeBeforeWait;
 			// Wait until reply is available.
 			while (remainingTime > 0) {
 				response = removeResponse(id);
@@ -174,25 +564,67 @@ public abstract class AbstractMIControl {
 					break;
 				}
 				try {
-					waitForResponse(remainingTime, fReplyPackets);
+					waitForResponse(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingTime)), fReplyPackets);
 				}
 				// just stop waiting for the reply and treat it as a timeout
 				catch (InterruptedException e) {
 
 				}
-				long waitedTime = System.currentTimeMillis() - timeBeforeWait;
-				remainingTime = timeToWait - waitedTime;
+				remainingTime = waitDeadline - System.nanoTime();
 			}
 		}
 		if (response == null) {
 			synchronized (fReplyPackets) {
 				response = removeResponse(id);
+				if (response == null) {
+					CommandHandle handle = fPendingCommands.get(id);
+					if (cancelCommand(id)) {
+						trace("Timed out: " + handle); //$NON-NLS-1$
+						if (deadline != null) {
+							deadline[1] = 1;
+						}
+						response = handle.getCommand().getResult(createTimeoutOutput(id, handle.getCommand()));
+					}
+				}
 			}
 		}
 
 		return response;
 	}
 
+	/**
+	 * Waits for the answer of a command routed to another control, within the deadline
+	 * of the current request.
+	 */
+	private MIInfo getRoutedResponse(AbstractMIControl route, int id, long timeToWait) {
+		route.fRequestDeadline.set(fRequestDeadline.get());
+		try {
+			MIInfo response = route.getResponse(id, timeToWait);
+			if (response != null) {
+				fRoutedTokens.remove(id);
+			}
+			return response;
+		} finally {
+			route.fRequestDeadline.remove();
+		}
+	}
+
+	/**
+	 * Builds the ^error output reported for a command which did not complete in time.
+	 */
+	private MIOutput createTimeoutOutput(int id, MICommand<MIInfo> command) {
+		MIConst msg = new MIConst();
+		msg.setCString("Timed out waiting for " + command.getOperation()); //$NON-NLS-1$
+		MIResult result = new MIResult();
+		result.setVariable("msg"); //$NON-NLS-1$
+		result.setMIValue(msg);
+		MIResultRecord rr = new MIResultRecord();
+		rr.setToken(id);
+		rr.setResultClass(MIResultRecord.ERROR);
+		rr.setMIResults(new MIResult[] { result });
+		return new MIOutput(rr, new MIOOBRecord[0]);
+	}
+
 	/**
 	 * Wait for a response from GDB.
 	 */
@@ -206,6 +638,50 @@ public abstract class AbstractMIControl {
 			lock.wait(timeToWait);
 	}
 
+	/**
+	 * Echoes a line of MI traffic on stdout, see {@link #MI_TRACE}.
+	 */
+	private static void trace(MIRecordReader.Line line) {
+		if (!MI_TRACE) {
+			return;
+		}
+		synchronized (System.out) {
+			System.out.print(MI_TRACE_IDENTIFIER);
+			try {
+				line.writeTo(System.out);
+			} catch (IOException e) {
+				// PrintStream never throws
+			}
+			System.out.println();
+		}
+	}
+
+	private static void trace(String message) {
+		if (MI_TRACE) {
+			System.out.println(MI_TRACE_IDENTIFIER + message);
+		}
+	}
+
+	/**
+	 * Forgets the cancelled commands sent before the given answered one, whose late
+	 * replies would have come before its reply.
+	 */
+	private void dropUnanswered(CommandHandle answered) {
+		long sent = answered.getSentSequence();
+		synchronized (fCancelledTokens) {
+			if (!fCancelledTokens.isEmpty()) {
+				fCancelledTokens.values().removeIf(handle -> handle.getSentSequence() < sent);
+			}
+		}
+	}
+
+	/**
+	 * Returns how many cancelled commands may still get a late reply.
+	 */
+	public int getCancelledCommandCount() {
+		return fCancelledTokens.size();
+	}
+
 	/*
 	 *  Support class which creates a convenient wrapper for holding all information about an
 	 *  individual request.
@@ -214,10 +690,21 @@ public abstract class AbstractMIControl {
 
 		private MICommand<MIInfo> fCommand;
 		private int fTokenId;
-
-		CommandHandle(int id, MICommand<MIInfo> c) {
+		private final String fKey;
+		private final long fEpoch;
+		private final long fVarObjEpoch;
+		/** Position of the command among those written to GDB, or Long.MAX_VALUE before */
+		private volatile long fSentSequence = Long.MAX_VALUE;
+		/** Tokens of the callers waiting for the result, starting with fTokenId. */
+		private final List<Integer> fWaitingTokens = new ArrayList<>(1);
+
+		CommandHandle(int id, MICommand<MIInfo> c, String key, long epoch, long varObjEpoch) {
 			fCommand = c;
 			fTokenId = id;
+			fKey = key;
+			fEpoch = epoch;
+			fVarObjEpoch = varObjEpoch;
+			fWaitingTokens.add(id);
 		}
 
 		public MICommand<MIInfo> getCommand() {
@@ -228,6 +715,54 @@ public abstract class AbstractMIControl {
 			return fTokenId;
 		}
 
+		String getKey() {
+			return fKey;
+		}
+
+		long getSentSequence() {
+			return fSentSequence;
+		}
+
+		void setSentSequence(long sequence) {
+			fSentSequence = sequence;
+		}
+
+		/**
+		 * Returns whether the result of this read-only command is still valid in the given
+		 * epochs. Only results of variable object queries depend on the variable object epoch.
+		 */
+		boolean isCurrent(long epoch, long varObjEpoch) {
+			return fEpoch == epoch && (fVarObjEpoch == varObjEpoch || !fKey.startsWith(VAR_OBJ_PREFIX));
+		}
+
+		/**
+		 * Adds a caller waiting for this command's result.
+		 *
+		 * @return false if every previous caller detached, in which case the command is
+		 * being cancelled and cannot be shared anymore
+		 */
+		synchronized boolean attach(int id) {
+			if (fWaitingTokens.isEmpty()) {
+				return false;
+			}
+			fWaitingTokens.add(id);
+			return true;
+		}
+
+		/**
+		 * Removes a caller waiting for this command's result.
+		 *
+		 * @return true if no caller waits for the result anymore
+		 */
+		synchronized boolean detach(int id) {
+			fWaitingTokens.remove(Integer.valueOf(id));
+			return fWaitingTokens.isEmpty();
+		}
+
+		synchronized Integer[] getWaitingTokens() {
+			return fWaitingTokens.toArray(new Integer[fWaitingTokens.size()]);
+		}
+
 		@Override
 		public String toString() {
 			return Integer.toString(fTokenId) + fCommand;
@@ -252,37 +787,49 @@ public abstract class AbstractMIControl {
 
 		@Override
 		public void run() {
+			List<CommandHandle> batch = new ArrayList<>();
+			MICommandBuffer buffer = new MICommandBuffer();
 			while (true) {
-				CommandHandle commandHandle = null;
-
 				try {
-					commandHandle = fTxCommands.take();
+					batch.add(fTxCommands.take());
 				} catch (InterruptedException e) {
 					break; // Shutting down.
 				}
+				// Send whatever else is ready along with it, in one write
+				fTxCommands.drainTo(batch);
 
-				/*
-				 *  We note that this is an outstanding request at this point.
-				 */
-				if (!(commandHandle.getCommand() instanceof RawCommand)) {
-					// RawCommands will not get an answer, so we cannot put them in the receive queue.
-					fRxCommands.put(commandHandle.getTokenId(), commandHandle);
-				}
+				buffer.reset();
+				for (CommandHandle commandHandle : batch) {
+					if (fCancelledTokens.remove(commandHandle.getTokenId()) != null) {
+						continue; // Cancelled before it reached the wire.
+					}
 
-				/*
-				 *   Construct the new command and push this command out the pipeline.
-				 */
-				final String str;
-				if (commandHandle.getCommand() instanceof RawCommand) {
-					// RawCommands CANNOT have a token id: GDB would read it as part of the RawCommand!
-					str = commandHandle.getCommand().constructCommand();
-				} else {
-					str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand();
+					/*
+					 *  We note that this is an outstanding request at this point.
+					 */
+					if (!(commandHandle.getCommand() instanceof RawCommand)) {
+						// RawCommands will not get an answer, so we cannot put them in the receive queue.
+						fRxCommands.put(commandHandle.getTokenId(), commandHandle);
+					}
+
+					commandHandle.setSentSequence(++fSentCommands);
+
+					/*
+					 *   Encode the new command into the pipeline.
+					 */
+					if (commandHandle.getCommand() instanceof RawCommand) {
+						// RawCommands CANNOT have a token id: GDB would read it as part of the RawCommand!
+						commandHandle.getCommand().encode(buffer);
+					} else {
+						buffer.append(commandHandle.getTokenId().intValue());
+						commandHandle.getCommand().encode(buffer);
+					}
 				}
+				batch.clear();
 
 				try {
-					if (fOutputStream != null) {
-						fOutputStream.write(str.getBytes());
+					if (fOutputStream != null && buffer.length() > 0) {
+						buffer.writeTo(fOutputStream);
 						fOutputStream.flush();
 					}
 				} catch (IOException e) {
@@ -298,23 +845,15 @@ public abstract class AbstractMIControl {
 		}
 	}
 
+	/**
+	 *  Reader stage of the receive pipeline. It only splits GDB's output into lines
+	 *  and hands them to the {@link ParseThread}, so GDB does not block on its stdout
+	 *  pipe while earlier records are still being parsed or dispatched. Lines are
+	 *  passed as byte copies which the parse stage hands back for reuse, so reading
+	 *  allocates nothing per line once the pipeline is warm.
+	 */
 	private class RxThread extends Thread {
 		private final InputStream fInputStream;
-		private final MIParser fMiParser = new MIParser();
-
-		/**
-		 * List of out of band records since the last result record. Out of band
-		 * records are required for processing the results of CLI commands.
-		 */
-		private final List<MIOOBRecord> fAccumulatedOOBRecords = new LinkedList<>();
-
-		/**
-		 * List of stream records since the last result record, not including
-		 * the record currently being processed (if it's a stream one). This is
-		 * a subset of {@link #fAccumulatedOOBRecords}, as a stream record is a
-		 * particular type of OOB record.
-		 */
-		private final List<MIStreamRecord> fAccumulatedStreamRecords = new LinkedList<>();
 
 		public RxThread(InputStream inputStream) {
 			super("MI RX Thread"); //$NON-NLS-1$
@@ -323,20 +862,26 @@ public abstract class AbstractMIControl {
 
 		@Override
 		public void run() {
-			BufferedReader reader = new BufferedReader(new InputStreamReader(fInputStream));
+			MIRecordReader reader = new MIRecordReader(fInputStream);
 			try {
-				String line;
+				MIRecordReader.Line line;
 				while ((line = reader.readLine()) != null) {
 					if (line.length() != 0) {
-						System.out.println(line);
-						processMIOutput(line);
+						trace(line);
+						MIRecordReader.Line copy = fFreeLines.poll();
+						if (copy == null) {
+							copy = new MIRecordReader.Line();
+						}
+						line.copyTo(copy);
+						fParseQueue.put(copy);
 					}
 				}
 			} catch (IOException e) {
 				// Socket is shut down.
-			} catch (RejectedExecutionException e) {
-				// Dispatch thread is down.
+			} catch (InterruptedException e) {
+				// Shutting down.
 			}
+			fParseQueue.close();
 			// Must close the stream here to avoid leaking and
 			// to give enough time to read all the data
 			try {
@@ -344,78 +889,170 @@ public abstract class AbstractMIControl {
 			} catch (IOException e) {
 			}
 		}
+	}
 
-		void processMIOutput(String line) {
-			MIParser.RecordType recordType = fMiParser.getRecordType(line);
-
-			if (recordType == MIParser.RecordType.ResultRecord) {
-				final MIResultRecord rr = fMiParser.parseMIResultRecord(line);
+	/**
+	 *  Parse stage of the receive pipeline, turns lines into records for the
+	 *  {@link DispatchThread}.
+	 */
+	private class ParseThread extends Thread {
+		private final MIParser fMiParser = new MIParser();
 
-				/*
-				 *  Find the command in the current output list. If we cannot then this is
-				 *  some form of asynchronous notification. Or perhaps general IO.
-				 */
-				int id = rr.getToken();
-
-				final CommandHandle commandHandle = fRxCommands.remove(id);
-				final MIOutput response;
-				final MIInfo result;
-				
-				if (commandHandle != null) {
-					response = new MIOutput(rr,
-							fAccumulatedOOBRecords.toArray(new MIOOBRecord[fAccumulatedOOBRecords.size()]));
-					fAccumulatedOOBRecords.clear();
-					fAccumulatedStreamRecords.clear();
-
-					result = commandHandle.getCommand().getResult(response);
-					//System.out.println("MI command output received for: " + commandHandle.getCommand() + ": " + result);
-				} else {
-					/*
-					 *  GDB apparently can sometimes send multiple responses to the same command.  In those cases,
-					 *  the command handle is gone, so post the result as an event.  To avoid processing OOB records
-					 *  as events multiple times, do not include the accumulated OOB record list in the response
-					 *  MIOutput object.
-					 */
-					response = new MIOutput(rr, new MIOOBRecord[0]);
-					result = new MIInfo(response);
-					processEvent(response);
-					//System.out.println("MI asynchronous output received: " + result);
+		public ParseThread() {
+			super("MI Parse Thread"); //$NON-NLS-1$
+			fMiParser.setLazy(MI_LAZY);
+		}
 
+		@Override
+		public void run() {
+			try {
+				MIRecordReader.Line line;
+				while ((line = fParseQueue.take()) != null) {
+					MIParser.RecordType recordType = fMiParser.getRecordType(line);
+					if (recordType == MIParser.RecordType.ResultRecord) {
+						MIResultVisitor visitor = getResultVisitor(line);
+						fDispatchQueue.put(visitor != null
+								? fMiParser.parseMIResultRecord(line, visitor)
+								: fMiParser.parseMIResultRecord(line));
+					} else if (recordType == MIParser.RecordType.OOBRecord) {
+						fDispatchQueue.put(fMiParser.parseMIOOBRecord(line));
+					} else {
+						// Nothing to process, but lets the next queued command go out
+						fDispatchQueue.put(recordType);
+					}
+					// Parsed records keep copies of what they need from the line
+					if (line.capacity() <= MAX_POOLED_LINE) {
+						fFreeLines.offer(line);
+					}
 				}
-				addResponse(id, result);
-			} else if (recordType == MIParser.RecordType.OOBRecord) {
-				final MIOOBRecord oob = fMiParser.parseMIOOBRecord(line);
+			} catch (InterruptedException e) {
+				// Shutting down.
+			}
+			fDispatchQueue.close();
+		}
 
-				fAccumulatedOOBRecords.add(oob);
-				// limit growth, but only if these are not responses to CLI commands
-				if (fRxCommands.isEmpty() && fAccumulatedOOBRecords.size() > 20
-						|| fAccumulatedOOBRecords.size() > 100000) {
-					fAccumulatedOOBRecords.remove(0);
-				}
+		/**
+		 * Returns the visitor of the command the result record answers, if any.
+		 */
+		private MIResultVisitor getResultVisitor(CharSequence line) {
+			long token = 0;
+			int end = 0;
+			for (; end < line.length() && Character.isDigit(line.charAt(end)) && token <= Integer.MAX_VALUE; end++) {
+				token = token * 10 + (line.charAt(end) - '0');
+			}
+			if (end == 0 || token > Integer.MAX_VALUE) {
+				return null;
+			}
+			CommandHandle handle = fPendingCommands.get((int) token);
+			return handle != null ? handle.getCommand().getResultVisitor() : null;
+		}
+	}
+
+	/**
+	 *  Dispatch stage of the receive pipeline. Matches result records with their
+	 *  commands and hands out of band records to the event listeners, in the order
+	 *  GDB wrote them.
+	 */
+	private class DispatchThread extends Thread {
+		/**
+		 * Stream records since the last result record. These are the output of
+		 * CLI commands, which is handed to the command's result, and the
+		 * context of out of band records, e.g. a catchpoint hit in gdb < 7.0.
+		 */
+		private final StreamRecordRing fAccumulatedStreamRecords = new StreamRecordRing(MAX_ACCUMULATED_STREAM_RECORDS);
 
-				// The handling of this OOB record may need the stream records
-				// that preceded it. One such case is a stopped event caused by a
-				// catchpoint in gdb < 7.0. The stopped event provides no
-				// reason, but we can determine it was caused by a catchpoint by
-				// looking at the target stream.
-
-				final MIOutput response = new MIOutput(oob,
-						fAccumulatedStreamRecords.toArray(new MIStreamRecord[fAccumulatedStreamRecords.size()]));
-
-				// If this is a stream record, add it to the accumulated bucket
-				// for possible use in handling a future OOB (see comment above)
-				if (oob instanceof MIStreamRecord) {
-					fAccumulatedStreamRecords.add((MIStreamRecord) oob);
-					if (fAccumulatedStreamRecords.size() > 20) { // limit growth; see bug 302927
-						fAccumulatedStreamRecords.remove(0);
+		public DispatchThread() {
+			super("MI Dispatch Thread"); //$NON-NLS-1$
+		}
+
+		@Override
+		public void run() {
+			try {
+				Object record;
+				while ((record = fDispatchQueue.take()) != null) {
+					if (record instanceof MIResultRecord) {
+						processMIResultRecord((MIResultRecord) record);
+					} else if (record instanceof MIOOBRecord) {
+						processMIOOBRecord((MIOOBRecord) record);
 					}
+					processNextQueuedCommand();
 				}
+			} catch (InterruptedException e) {
+				// Shutting down.
+			} catch (RejectedExecutionException e) {
+				// Dispatch thread is down.
+			}
+		}
 
-				processEvent(response);
-				//System.out.println("********* MI asynchronous output received: " + response);
+		void processMIResultRecord(MIResultRecord rr) {
+			/*
+			 *  Find the command in the current output list. If we cannot then this is
+			 *  some form of asynchronous notification. Or perhaps general IO.
+			 */
+			int id = rr.getToken();
+
+			CommandHandle cancelled = fCancelledTokens.remove(id);
+			if (cancelled != null) {
+				// Late reply to a command which timed out, nobody is waiting for it anymore.
+				dropUnanswered(cancelled);
+				fRxCommands.remove(id);
+				fAccumulatedStreamRecords.clear();
+				return;
 			}
+
+			final CommandHandle commandHandle = fRxCommands.remove(id);
+			final MIOutput response;
+			final MIInfo result;
 			
-			processNextQueuedCommand();
+			if (commandHandle != null) {
+				dropUnanswered(commandHandle);
+				response = new MIOutput(rr, fAccumulatedStreamRecords.toArray());
+				fAccumulatedStreamRecords.clear();
+
+				result = commandHandle.getCommand().getResult(response);
+				//System.out.println("MI command output received for: " + commandHandle.getCommand() + ": " + result);
+				cacheResponse(commandHandle, result);
+				retireQuery(commandHandle);
+				for (Integer token : commandHandle.getWaitingTokens()) {
+					addResponse(token, result);
+				}
+			} else {
+				/*
+				 *  GDB apparently can sometimes send multiple responses to the same command.  In those cases,
+				 *  the command handle is gone, so post the result as an event.  To avoid processing OOB records
+				 *  as events multiple times, do not include the accumulated OOB record list in the response
+				 *  MIOutput object.
+				 */
+				response = new MIOutput(rr, new MIOOBRecord[0]);
+				result = new MIInfo(response);
+				processEvent(response);
+				//System.out.println("MI asynchronous output received: " + result);
+				addResponse(id, result);
+			}
+		}
+
+		void processMIOOBRecord(MIOOBRecord oob) {
+			// The handling of this OOB record may need the stream records
+			// that preceded it. One such case is a stopped event caused by a
+			// catchpoint in gdb < 7.0. The stopped event provides no
+			// reason, but we can determine it was caused by a catchpoint by
+			// looking at the target stream.
+
+			final MIOutput response = new MIOutput(oob, fAccumulatedStreamRecords.snapshot(20)); // see bug 302927
+
+			// If this is a stream record, add it to the accumulated bucket
+			// for possible use in handling a future OOB (see comment above)
+			// or as the output of a pending CLI command
+			if (oob instanceof MIStreamRecord) {
+				fAccumulatedStreamRecords.add((MIStreamRecord) oob);
+				// limit growth, but only if these are not responses to CLI commands
+				if (fRxCommands.isEmpty()) {
+					fAccumulatedStreamRecords.retainLast(20);
+				}
+			}
+
+			processEvent(response);
+			//System.out.println("********* MI asynchronous output received: " + response);
 		}
 	}
 
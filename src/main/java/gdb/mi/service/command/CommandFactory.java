@@ -118,6 +118,10 @@ public class CommandFactory {
 		return new MIExecContinue(groupId);
 	}
 
+	public MICommand<MIInfo> createMIExecContinue(int threadId) {
+		return new MIExecContinue(threadId);
+	}
+
 	public MICommand<MIInfo> createMIExecInterrupt() {
 		return new MIExecInterrupt();
 	}
@@ -130,6 +134,10 @@ public class CommandFactory {
 		return new MIExecInterrupt(groupId);
 	}
 
+	public MICommand<MIInfo> createMIExecInterrupt(int threadId) {
+		return new MIExecInterrupt(threadId);
+	}
+
 	public MICommand<MIInfo> createMIExecJump(String location) {
 		return new MIExecJump(location);
 	}
@@ -191,8 +199,20 @@ public class CommandFactory {
 		return new MIGDBVersion();
 	}
 
+	public MICommand<MIVarAssignInfo> createMIJavaAssignLocal(String threadId, int frameId, String name, String expression) {
+		return new MIJavaAssignLocal(threadId, frameId, name, expression);
+	}
+
+	public MICommand<MIJavaFramesWithLocalsInfo> createMIJavaFramesWithLocals(String threadId, int low, int high) {
+		return new MIJavaFramesWithLocals(threadId, low, high);
+	}
+
 	public MICommand<MIThreadInfoInfo> createMIThreadInfo() { return new MIThreadInfo(); }
 
+	public MICommand<MIThreadInfoInfo> createMIThreadInfo(String threadId) { return new MIThreadInfo(threadId); }
+
+	public MICommand<MIThreadListIdsInfo> createMIThreadListIds() { return new MIThreadListIds(); }
+
 	public MICommand<MIInfo> createMISelectThread(int threadNum) { return new MIThreadSelect(threadNum); }
 
 	public MICommand<MIStackInfoDepthInfo> createMIStackInfoDepth(String threadId) { return new MIStackInfoDepth(threadId); }
@@ -207,6 +227,10 @@ public class CommandFactory {
 
 	public MICommand<MIStackListFramesInfo> createMIStackListFrames(String threadId) { return new MIStackListFrames(threadId); }
 
+	public MICommand<MIStackListFramesInfo> createMIStackListFrames(String threadId, int low, int high) {
+		return new MIStackListFrames(threadId, low, high);
+	}
+
 	public MICommand<MIStackListVariablesInfo> createMIStackListVariables(boolean printValues) {
 		return new MIStackListVariables(printValues);
 	}
@@ -258,6 +282,11 @@ public class CommandFactory {
 		return new MIVarCreate(name, frameAddr, expression);
 	}
 
+	public MICommand<MIVarCreateInfo> createMIVarCreate(String threadId, int frameId, String name,
+													   String expression) {
+		return new MIVarCreate(threadId, frameId, name, expression);
+	}
+
 	public MICommand<MIVarDeleteInfo> createMIVarDelete(String name) {
 		return new MIVarDelete(name);
 	}
@@ -0,0 +1,95 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MIAsyncRecord;
+import gdb.mi.service.command.output.MIBreakpoint;
+import gdb.mi.service.command.output.MIConst;
+import gdb.mi.service.command.output.MIResult;
+import gdb.mi.service.command.output.MITuple;
+import gdb.mi.service.command.output.MIValue;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live view of GDB's breakpoints, keyed by breakpoint number. It is seeded with the
+ * results of the break insert commands and kept up to date from the
+ * =breakpoint-created, =breakpoint-modified and =breakpoint-deleted notifications,
+ * which carry hit counts, pending status and condition changes. The event request
+ * handlers look breakpoints up here rather than asking GDB with -break-list.
+ *
+ * Locations at which GDB would break at another line are kept apart, so that they
+ * are turned down without inserting a breakpoint there again.
+ */
+public class MIBreakpointRegistry {
+	private static final String CREATED = "breakpoint-created"; //$NON-NLS-1$
+	private static final String MODIFIED = "breakpoint-modified"; //$NON-NLS-1$
+	private static final String DELETED = "breakpoint-deleted"; //$NON-NLS-1$
+
+	private final Map<String, MIBreakpoint> fBreakpoints = new ConcurrentHashMap<>();
+	private final Set<String> fInvalidLocations = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Records the current state of a breakpoint, e.g. as returned by -break-insert.
+	 */
+	public void update(MIBreakpoint breakpoint) {
+		if (breakpoint != null && breakpoint.getNumber() != null) {
+			fBreakpoints.put(breakpoint.getNumber(), breakpoint);
+		}
+	}
+
+	/**
+	 * Forgets a breakpoint deleted with -break-delete, which GDB does not notify.
+	 */
+	public void remove(String number) {
+		fBreakpoints.remove(number);
+	}
+
+	/**
+	 * Applies a breakpoint notification. Returns false if the record is about
+	 * something else.
+	 */
+	public boolean notify(MIAsyncRecord record) {
+		String asyncClass = record.getAsyncClass();
+		if (CREATED.equals(asyncClass) || MODIFIED.equals(asyncClass)) {
+			for (MIResult result : record.getMIResults()) {
+				MIValue value = result.getMIValue();
+				if ("bkpt".equals(result.getVariable()) && value instanceof MITuple) { //$NON-NLS-1$
+					update(new MIBreakpoint((MITuple) value));
+				}
+			}
+		} else if (DELETED.equals(asyncClass)) {
+			for (MIResult result : record.getMIResults()) {
+				MIValue value = result.getMIValue();
+				if ("id".equals(result.getVariable()) && value instanceof MIConst) { //$NON-NLS-1$
+					remove(((MIConst) value).getString());
+				}
+			}
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the last known state of a breakpoint, or null if there is no such breakpoint.
+	 */
+	public MIBreakpoint get(String number) {
+		return fBreakpoints.get(number);
+	}
+
+	/**
+	 * Remembers a location, as it was given to -break-insert, at which GDB would break
+	 * at another line.
+	 */
+	public void addInvalidLocation(String location) {
+		fInvalidLocations.add(location);
+	}
+
+	/**
+	 * Returns true if a location was found to be invalid by an earlier insert.
+	 */
+	public boolean isInvalidLocation(String location) {
+		return fInvalidLocations.contains(location);
+	}
+}
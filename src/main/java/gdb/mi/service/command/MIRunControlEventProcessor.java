@@ -30,6 +30,7 @@ import java.util.regex.Pattern;
 import gdb.mi.service.command.output.MIOOBRecord;
 import gdb.mi.service.command.output.MIOutput;
 import gdb.mi.service.command.output.MIExecAsyncOutput;
+import gdb.mi.service.command.output.MINotifyAsyncOutput;
 import gdb.mi.service.command.output.MIResult;
 import gdb.mi.service.command.output.MIValue;
 import gdb.mi.service.command.output.MIConst;
@@ -107,7 +108,16 @@ public class MIRunControlEventProcessor implements Listener {
 				MIExecAsyncOutput exec = (MIExecAsyncOutput) oobr;
 				// Change of state.
 				String state = exec.getAsyncClass();
+				if ("running".equals(state) || "stopped".equals(state)) { //$NON-NLS-1$ //$NON-NLS-2$
+					// Anything cached about threads and frames is stale now.
+					fCommandControl.getThreads().notify(exec);
+					// In non-stop mode other threads may still run after a stop
+					fCommandControl.advanceStopEpoch(!fCommandControl.getThreads().isAllStopped());
+					fCommandControl.getFrameCache().invalidate(exec);
+				}
 				if ("stopped".equals(state)) { //$NON-NLS-1$
+					fCommandControl.getThreadIdentity().stopped();
+					fCommandControl.getFrameVariables().stopped();
 					// Re-set the thread and stack level to -1 when stopped event is recvd.
 					// This is to synchronize the state between GDB back-end and AbstractMIControl.
 
@@ -163,6 +173,15 @@ public class MIRunControlEventProcessor implements Listener {
 						}
 					}
 				}
+			} else if (oobr instanceof MINotifyAsyncOutput) {
+				MINotifyAsyncOutput notify = (MINotifyAsyncOutput) oobr;
+				// Hit counts, pending status and conditions of breakpoints
+				if (!fCommandControl.getBreakpoints().notify(notify) && fCommandControl.getThreads().notify(notify)) {
+					PacketStream packetStream = Translator.translateThreadEvent(fCommandControl, notify);
+					if (packetStream != null) {
+						packetStream.send();
+					}
+				}
 			} else if (oobr instanceof MIConsoleStreamOutput) {
 				MIConsoleStreamOutput stream = (MIConsoleStreamOutput) oobr;
 				if (stream.getCString().startsWith("Program terminated with signal")) {//$NON-NLS-1$
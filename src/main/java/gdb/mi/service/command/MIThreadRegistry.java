@@ -0,0 +1,274 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MIAsyncRecord;
+import gdb.mi.service.command.output.MIConst;
+import gdb.mi.service.command.output.MIList;
+import gdb.mi.service.command.output.MIResult;
+import gdb.mi.service.command.output.MIThread;
+import gdb.mi.service.command.output.MIValue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live view of the threads of the inferior, keyed by GDB thread id. It is kept up to
+ * date from the =thread-created, =thread-exited and =thread-group-exited notifications
+ * and from the *running and *stopped records, which tell which threads changed state.
+ * Notifications carry no LWP nor name, those are filled in from -thread-info results.
+ * Listing threads and their state therefore never needs a -thread-info round trip,
+ * which makes GDB unwind the top frame of every thread.
+ */
+public class MIThreadRegistry {
+	public static final String CREATED = "thread-created"; //$NON-NLS-1$
+	public static final String EXITED = "thread-exited"; //$NON-NLS-1$
+	private static final String GROUP_EXITED = "thread-group-exited"; //$NON-NLS-1$
+	private static final String RUNNING = "running"; //$NON-NLS-1$
+	private static final String STOPPED = "stopped"; //$NON-NLS-1$
+	private static final String ALL = "all"; //$NON-NLS-1$
+
+	/**
+	 * What is known about one thread.
+	 */
+	public static class Entry {
+		private final String fThreadId;
+		private final String fGroupId;
+		private volatile String fOsId;
+		private volatile String fName;
+		private volatile boolean fRunning;
+		private volatile boolean fStateKnown;
+
+		Entry(String threadId, String groupId) {
+			fThreadId = threadId;
+			fGroupId = groupId;
+		}
+
+		void setRunning(boolean running) {
+			fRunning = running;
+			fStateKnown = true;
+		}
+
+		public String getThreadId() {
+			return fThreadId;
+		}
+
+		public String getGroupId() {
+			return fGroupId;
+		}
+
+		/**
+		 * Returns the LWP of the thread, or null if no -thread-info reported it yet.
+		 */
+		public String getOsId() {
+			return fOsId;
+		}
+
+		/**
+		 * Returns the name of the thread, or null if no -thread-info reported it yet.
+		 */
+		public String getName() {
+			return fName;
+		}
+
+		public boolean isRunning() {
+			return fRunning;
+		}
+
+		/**
+		 * Returns whether the thread is known to run or to be stopped, which is not
+		 * the case for threads only listed by -thread-list-ids so far.
+		 */
+		public boolean hasState() {
+			return fStateKnown;
+		}
+
+		/**
+		 * Returns whether the LWP and name of the thread are known.
+		 */
+		public boolean hasDetails() {
+			return fOsId != null;
+		}
+	}
+
+	private final Map<String, Entry> fThreads = new ConcurrentHashMap<>();
+	private volatile boolean fSeeded;
+	/** Whether all threads stopped at the last stop, as always in all-stop mode */
+	private volatile boolean fStoppedAll;
+
+	/**
+	 * Records the threads listed by a -thread-info of all threads. Threads created
+	 * before the notifications were followed are only known from then on.
+	 */
+	public void seed(MIThread[] threads) {
+		for (MIThread thread : threads) {
+			update(thread);
+		}
+		fSeeded = true;
+	}
+
+	/**
+	 * Records the thread ids listed by -thread-list-ids, without any details or state.
+	 */
+	public void seed(String[] threadIds) {
+		for (String id : threadIds) {
+			if (id != null) {
+				fThreads.computeIfAbsent(id, key -> new Entry(key, null));
+			}
+		}
+		fSeeded = true;
+	}
+
+	/**
+	 * Returns whether all threads are known, from notifications or {@link #seed}.
+	 */
+	public boolean isSeeded() {
+		return fSeeded;
+	}
+
+	/**
+	 * Records the details of a thread as returned by -thread-info.
+	 */
+	public void update(MIThread thread) {
+		if (thread == null || thread.getThreadId() == null) {
+			return;
+		}
+		Entry entry = fThreads.computeIfAbsent(thread.getThreadId(), id -> new Entry(id, null));
+		if (thread.getOsId() != null) {
+			entry.fOsId = thread.getOsId();
+		}
+		if (thread.getName() != null) {
+			entry.fName = thread.getName();
+		}
+		if (thread.getState() != null) {
+			entry.setRunning(MIThread.MI_THREAD_STATE_RUNNING.equals(thread.getState()));
+		}
+	}
+
+	/**
+	 * Applies a thread notification or a *running or *stopped record. Returns false
+	 * if the record is about something else.
+	 */
+	public boolean notify(MIAsyncRecord record) {
+		String asyncClass = record.getAsyncClass();
+		if (CREATED.equals(asyncClass)) {
+			String id = getString(record, "id"); //$NON-NLS-1$
+			if (id != null) {
+				Entry entry = new Entry(id, getString(record, "group-id")); //$NON-NLS-1$
+				// New threads start running
+				entry.setRunning(true);
+				fThreads.putIfAbsent(id, entry);
+			}
+		} else if (EXITED.equals(asyncClass)) {
+			String id = getString(record, "id"); //$NON-NLS-1$
+			if (id != null) {
+				fThreads.remove(id);
+			}
+		} else if (GROUP_EXITED.equals(asyncClass)) {
+			String groupId = getString(record, "id"); //$NON-NLS-1$
+			fThreads.values().removeIf(entry -> entry.fGroupId == null || entry.fGroupId.equals(groupId));
+		} else if (RUNNING.equals(asyncClass)) {
+			fStoppedAll = false;
+			setRunning(getString(record, "thread-id"), true); //$NON-NLS-1$
+		} else if (STOPPED.equals(asyncClass)) {
+			MIValue stopped = getValue(record, "stopped-threads"); //$NON-NLS-1$
+			if (stopped instanceof MIConst && ALL.equals(((MIConst) stopped).getString())) {
+				fStoppedAll = true;
+			}
+			if (stopped instanceof MIList) {
+				for (MIValue id : ((MIList) stopped).getMIValues()) {
+					if (id instanceof MIConst) {
+						setRunning(((MIConst) id).getString(), false);
+					}
+				}
+			} else if (stopped instanceof MIConst) {
+				setRunning(((MIConst) stopped).getString(), false);
+			} else {
+				setRunning(getString(record, "thread-id"), false); //$NON-NLS-1$
+			}
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns what is known about a thread, or null if there is no such thread.
+	 */
+	public Entry get(String threadId) {
+		return fThreads.get(threadId);
+	}
+
+	/**
+	 * Returns the ids of all threads, in ascending order.
+	 */
+	public int[] getThreadIds() {
+		String[] keys = fThreads.keySet().toArray(new String[0]);
+		int[] ids = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			ids[i] = Integer.parseInt(keys[i]);
+		}
+		Arrays.sort(ids);
+		return ids;
+	}
+
+	/**
+	 * Returns whether all threads are known to be stopped. Threads the registry does not
+	 * know may be running unless all threads stopped since the last *running record.
+	 */
+	public boolean isAllStopped() {
+		if (!fSeeded && !fStoppedAll) {
+			return false;
+		}
+		for (Entry entry : fThreads.values()) {
+			if (entry.fRunning || !entry.fStateKnown) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int size() {
+		return fThreads.size();
+	}
+
+	public void clear() {
+		fThreads.clear();
+	}
+
+	/**
+	 * Returns the thread id a thread notification is about, or null if it has none.
+	 */
+	public static String getThreadId(MIAsyncRecord record) {
+		return getString(record, "id"); //$NON-NLS-1$
+	}
+
+	private void setRunning(String threadId, boolean running) {
+		if (threadId == null) {
+			return;
+		}
+		if (ALL.equals(threadId)) {
+			for (Entry entry : fThreads.values()) {
+				entry.setRunning(running);
+			}
+		} else {
+			Entry entry = fThreads.get(threadId);
+			if (entry != null) {
+				entry.setRunning(running);
+			}
+		}
+	}
+
+	private static MIValue getValue(MIAsyncRecord record, String variable) {
+		for (MIResult result : record.getMIResults()) {
+			if (variable.equals(result.getVariable())) {
+				return result.getMIValue();
+			}
+		}
+		return null;
+	}
+
+	private static String getString(MIAsyncRecord record, String variable) {
+		MIValue value = getValue(record, variable);
+		return value instanceof MIConst ? ((MIConst) value).getString() : null;
+	}
+}
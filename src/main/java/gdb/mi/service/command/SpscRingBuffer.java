@@ -0,0 +1,155 @@
+package gdb.mi.service.command;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded FIFO connecting two stages of the MI receive pipeline. Exactly one
+ * thread puts and exactly one thread takes; either side parks while the buffer
+ * is full, respectively empty, and is unparked by the other side.
+ */
+final class SpscRingBuffer<T> {
+	private final Object[] fSlots;
+	private final int fMask;
+
+	/** Index of the next slot to take, only written by the consumer. */
+	private volatile long fHead;
+	/** Index of the next slot to put, only written by the producer. */
+	private volatile long fTail;
+	private volatile boolean fClosed;
+
+	private volatile Thread fWaitingConsumer;
+	private volatile Thread fWaitingProducer;
+
+	/** Highest number of queued elements seen so far. */
+	private volatile int fMaxDepth;
+
+	/**
+	 * @param capacity rounded up to a power of two
+	 */
+	SpscRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		fSlots = new Object[size];
+		fMask = size - 1;
+	}
+
+	/**
+	 * Appends an element, waiting while the buffer is full.
+	 */
+	void put(T element) throws InterruptedException {
+		long tail = fTail;
+		while (tail - fHead == fSlots.length) {
+			fWaitingProducer = Thread.currentThread();
+			if (tail - fHead == fSlots.length) {
+				LockSupport.park(this);
+			}
+			fWaitingProducer = null;
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		fSlots[(int) tail & fMask] = element;
+		fTail = tail + 1;
+
+		int depth = (int) (tail + 1 - fHead);
+		if (depth > fMaxDepth) {
+			fMaxDepth = depth;
+		}
+		Thread consumer = fWaitingConsumer;
+		if (consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	/**
+	 * Removes the oldest element, waiting while the buffer is empty. Returns
+	 * null once the buffer is closed and drained.
+	 */
+	@SuppressWarnings("unchecked")
+	T take() throws InterruptedException {
+		long head = fHead;
+		while (head == fTail) {
+			if (fClosed && head == fTail) {
+				return null;
+			}
+			fWaitingConsumer = Thread.currentThread();
+			if (head == fTail && !fClosed) {
+				LockSupport.park(this);
+			}
+			fWaitingConsumer = null;
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		int index = (int) head & fMask;
+		T element = (T) fSlots[index];
+		fSlots[index] = null;
+		fHead = head + 1;
+
+		Thread producer = fWaitingProducer;
+		if (producer != null) {
+			LockSupport.unpark(producer);
+		}
+		return element;
+	}
+
+	/**
+	 * Appends an element unless the buffer is full.
+	 *
+	 * @return false if the buffer was full
+	 */
+	boolean offer(T element) {
+		long tail = fTail;
+		if (tail - fHead == fSlots.length) {
+			return false;
+		}
+		fSlots[(int) tail & fMask] = element;
+		fTail = tail + 1;
+
+		Thread consumer = fWaitingConsumer;
+		if (consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the oldest element, or returns null if the buffer is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	T poll() {
+		long head = fHead;
+		if (head == fTail) {
+			return null;
+		}
+		int index = (int) head & fMask;
+		T element = (T) fSlots[index];
+		fSlots[index] = null;
+		fHead = head + 1;
+
+		Thread producer = fWaitingProducer;
+		if (producer != null) {
+			LockSupport.unpark(producer);
+		}
+		return element;
+	}
+
+	/**
+	 * Called by the producer once it will not put anything anymore.
+	 */
+	void close() {
+		fClosed = true;
+		Thread consumer = fWaitingConsumer;
+		if (consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	int size() {
+		long head = fHead;
+		return (int) (fTail - head);
+	}
+
+	int getMaxDepth() {
+		return fMaxDepth;
+	}
+}
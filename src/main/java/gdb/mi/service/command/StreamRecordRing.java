@@ -0,0 +1,104 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MIOOBRecord;
+import gdb.mi.service.command.output.MIStreamRecord;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Fixed capacity buffer of the stream records received since the last result
+ * record, i.e. the console output of a pending CLI command. Once full, the oldest
+ * records are overwritten. Only the dispatch stage adds records, snapshots may be
+ * read from any thread.
+ */
+final class StreamRecordRing {
+	private static final MIOOBRecord[] NO_RECORDS = new MIOOBRecord[0];
+	private static final MIStreamRecord[] NO_STREAM_RECORDS = new MIStreamRecord[0];
+
+	private final MIStreamRecord[] fSlots;
+	private final int fMask;
+
+	/** Sequence number of the oldest retained record. */
+	private long fHead;
+	/** Sequence number of the next record to add. */
+	private volatile long fTail;
+
+	/**
+	 * @param capacity rounded up to a power of two
+	 */
+	StreamRecordRing(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		fSlots = new MIStreamRecord[size];
+		fMask = size - 1;
+	}
+
+	void add(MIStreamRecord record) {
+		long tail = fTail;
+		fSlots[(int) tail & fMask] = record;
+		fTail = tail + 1;
+		if (tail + 1 - fHead > fSlots.length) {
+			fHead = tail + 1 - fSlots.length;
+		}
+	}
+
+	/**
+	 * Forgets all but the given number of most recent records.
+	 */
+	void retainLast(int count) {
+		if (fTail - fHead > count) {
+			fHead = fTail - count;
+		}
+	}
+
+	void clear() {
+		fHead = fTail;
+	}
+
+	int size() {
+		return (int) (fTail - fHead);
+	}
+
+	/**
+	 * Copies the retained records, for the result of a command.
+	 */
+	MIOOBRecord[] toArray() {
+		int size = size();
+		if (size == 0) {
+			return NO_RECORDS;
+		}
+		MIOOBRecord[] records = new MIOOBRecord[size];
+		for (int i = 0; i < size; i++) {
+			records[i] = fSlots[(int) (fHead + i) & fMask];
+		}
+		return records;
+	}
+
+	/**
+	 * Returns a view of the given number of most recent records, which is only
+	 * copied when read. Records overwritten in the meantime are left out.
+	 */
+	Supplier<MIStreamRecord[]> snapshot(int count) {
+		final long end = fTail;
+		final long start = Math.max(fHead, end - count);
+		if (start == end) {
+			return () -> NO_STREAM_RECORDS;
+		}
+		return () -> {
+			long from = Math.max(start, fTail - fSlots.length);
+			if (from >= end) {
+				return NO_STREAM_RECORDS;
+			}
+			MIStreamRecord[] records = new MIStreamRecord[(int) (end - from)];
+			for (int i = 0; i < records.length; i++) {
+				records[i] = fSlots[(int) (from + i) & fMask];
+			}
+			// Drop whatever was overwritten while copying
+			long overwritten = fTail - fSlots.length - from;
+			if (overwritten > 0) {
+				return Arrays.copyOfRange(records, (int) Math.min(overwritten, records.length), records.length);
+			}
+			return records;
+		};
+	}
+}
@@ -26,4 +26,11 @@ public interface Adjustable {
 	String getValue();
 
 	String getAdjustedValue();
+
+	/**
+	 * Appends the adjusted value to the buffer a command is encoded into.
+	 */
+	default void writeAdjustedValue(MICommandBuffer buffer) {
+		buffer.append(getAdjustedValue());
+	}
 }
@@ -60,4 +60,9 @@ public class MIBreakList extends MICommand<MIBreakListInfo> {
 	public MIBreakListInfo getResult(MIOutput output) {
 		return new MIBreakListInfo(output);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
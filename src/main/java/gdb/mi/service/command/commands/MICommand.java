@@ -26,6 +26,7 @@ import java.util.stream.Collectors;
 
 import gdb.mi.service.command.output.MIInfo;
 import gdb.mi.service.command.output.MIOutput;
+import gdb.mi.service.command.output.MIResultVisitor;
 
 /**
  * Represents any MI command.
@@ -37,6 +38,7 @@ public class MICommand<V extends MIInfo>{
 	List<Adjustable> fParameters = new ArrayList<>();
 	String fOperation = ""; //$NON-NLS-1$
 	Function<String, Adjustable> fParamToAdjustable;
+	MIResultVisitor fResultVisitor;
 
 	/*
 	 * Constructors.
@@ -172,6 +174,47 @@ public class MICommand<V extends MIInfo>{
 		return command.toString();
 	}
 
+	/**
+	 * Appends the command as returned by {@link #constructCommand()} to the buffer,
+	 * without building the intermediate Strings.
+	 */
+	public void encode(MICommandBuffer buffer) {
+		buffer.append(getOperation());
+
+		int mark = buffer.length();
+		buffer.append(' ');
+		for (Adjustable option : fOptions) {
+			option.writeAdjustedValue(buffer);
+		}
+		if (!buffer.trimFrom(mark + 1)) {
+			buffer.setLength(mark);
+		}
+
+		mark = buffer.length();
+		buffer.append(' ');
+		if (fParameters != null && !fParameters.isEmpty()) {
+			// According to GDB/MI spec
+			// Add a "--" separator if any parameters start with "-"
+			if (!fOptions.isEmpty()) {
+				for (Adjustable parameter : fParameters) {
+					if (parameter.getValue().startsWith("-")) { //$NON-NLS-1$
+						buffer.append('-').append('-');
+						break;
+					}
+				}
+			}
+
+			for (Adjustable parameter : fParameters) {
+				buffer.append(' ');
+				parameter.writeAdjustedValue(buffer);
+			}
+		}
+		if (!buffer.trimFrom(mark + 1)) {
+			buffer.setLength(mark);
+		}
+		buffer.append('\n');
+	}
+
 	//    /*
 	//     * Checks to see if the current command can be coalesced with the
 	//     * supplied command.
@@ -245,6 +288,58 @@ public class MICommand<V extends MIInfo>{
 		return true;
 	}
 
+	/**
+	 * Returns whether this command only queries GDB, leaving both the debugger and
+	 * the inferior unchanged. Callers issuing the same read-only command at the same
+	 * time can share a single result.
+	 */
+	public boolean isReadOnly() {
+		return false;
+	}
+
+	/**
+	 * Returns whether this command only creates, updates or deletes variable objects.
+	 * It leaves the inferior and what other read-only commands report unchanged, so
+	 * only cached results of variable object queries are stale after it. Its own
+	 * result cannot be shared, e.g. -var-update only reports changes once.
+	 */
+	public boolean isVarObjUpdate() {
+		return false;
+	}
+
+	/**
+	 * Returns whether this command only reads the debug information of the
+	 * executable. Any GDB which loaded the same executable gives the same answer,
+	 * even one without a running inferior.
+	 */
+	public boolean isStatic() {
+		return false;
+	}
+
+	/**
+	 * Returns whether this read-only command may produce a large result and names
+	 * the thread and frame it is about instead of relying on GDB's selection, so that
+	 * any MI channel of the same GDB gives the same answer.
+	 */
+	public boolean isBulkQuery() {
+		return isStatic();
+	}
+
+	/**
+	 * Hands the results of this command to the given visitor while GDB's answer is
+	 * parsed, instead of building a tree of values. The result of the command then
+	 * only tells whether it succeeded. Meant for results too large to hold in memory
+	 * at once, such as the symbols of a whole native image; such commands are never
+	 * shared with other callers or cached.
+	 */
+	public void setResultVisitor(MIResultVisitor visitor) {
+		fResultVisitor = visitor;
+	}
+
+	public MIResultVisitor getResultVisitor() {
+		return fResultVisitor;
+	}
+
 	/**
 	 * Compares commands based on the MI command string that they generate,
 	 * without the token.
@@ -300,6 +395,23 @@ public class MICommand<V extends MIInfo>{
 			}
 			return builder.toString();
 		}
+
+		@Override
+		public void writeAdjustedValue(MICommandBuffer buffer) {
+			if (!MICommandBuffer.isAscii(value)) {
+				buffer.append(getAdjustedValue());
+				return;
+			}
+			boolean quote = value.indexOf('\t') != -1 || value.indexOf(' ') != -1;
+			buffer.append(' ');
+			if (quote) {
+				buffer.append('"');
+			}
+			writeEscaped(value, buffer);
+			if (quote) {
+				buffer.append('"');
+			}
+		}
 	}
 
 	public static class MIStandardParameterAdjustable extends MICommandAdjustable {
@@ -336,6 +448,35 @@ public class MICommand<V extends MIInfo>{
 			//
 			return builder.toString();
 		}
+
+		@Override
+		public void writeAdjustedValue(MICommandBuffer buffer) {
+			if (!MICommandBuffer.isAscii(value)) {
+				buffer.append(getAdjustedValue());
+				return;
+			}
+			boolean quote = containsWhitespace(value);
+			if (quote) {
+				buffer.append('"');
+			}
+			writeEscaped(value, buffer);
+			if (quote) {
+				buffer.append('"');
+			}
+		}
+	}
+
+	/**
+	 * Appends the value with double quotes and backslashes escaped.
+	 */
+	static void writeEscaped(String value, MICommandBuffer buffer) {
+		for (int j = 0; j < value.length(); j++) {
+			char c = value.charAt(j);
+			if (c == '"' || c == '\\') {
+				buffer.append('\\');
+			}
+			buffer.append(c);
+		}
 	}
 
 	/**
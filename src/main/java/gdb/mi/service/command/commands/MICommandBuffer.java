@@ -0,0 +1,127 @@
+package gdb.mi.service.command.commands;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import gdb.mi.service.command.output.MIStringHandler;
+
+/**
+ * Reusable byte buffer that MI commands are encoded into before being written to
+ * GDB. Commands are ASCII almost always, those characters are stored directly;
+ * anything else is encoded with {@link MIStringHandler#CHARSET}.
+ */
+public final class MICommandBuffer {
+	private byte[] fBytes;
+	private int fLength;
+
+	public MICommandBuffer() {
+		this(1024);
+	}
+
+	public MICommandBuffer(int capacity) {
+		fBytes = new byte[capacity];
+	}
+
+	/**
+	 * Appends an ASCII character.
+	 */
+	public MICommandBuffer append(char c) {
+		ensureCapacity(1);
+		fBytes[fLength++] = (byte) c;
+		return this;
+	}
+
+	public MICommandBuffer append(String s) {
+		int length = s.length();
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			char c = s.charAt(i);
+			if (c >= 0x80) {
+				// Undo and encode the whole string
+				fLength -= i;
+				byte[] encoded = s.getBytes(MIStringHandler.CHARSET);
+				ensureCapacity(encoded.length);
+				System.arraycopy(encoded, 0, fBytes, fLength, encoded.length);
+				fLength += encoded.length;
+				return this;
+			}
+			fBytes[fLength++] = (byte) c;
+		}
+		return this;
+	}
+
+	public MICommandBuffer append(int i) {
+		if (i < 0) {
+			return append(Integer.toString(i));
+		}
+		int digits = 1;
+		for (int n = i; n >= 10; n /= 10) {
+			digits++;
+		}
+		ensureCapacity(digits);
+		for (int pos = fLength + digits - 1; pos >= fLength; pos--) {
+			fBytes[pos] = (byte) ('0' + i % 10);
+			i /= 10;
+		}
+		fLength += digits;
+		return this;
+	}
+
+	public int length() {
+		return fLength;
+	}
+
+	public void setLength(int length) {
+		fLength = length;
+	}
+
+	/**
+	 * Removes leading and trailing whitespace, as String.trim() does, from the bytes
+	 * appended since the given position. Returns whether any bytes are left there.
+	 */
+	public boolean trimFrom(int start) {
+		int end = fLength;
+		while (end > start && (fBytes[end - 1] & 0xff) <= ' ') {
+			end--;
+		}
+		int first = start;
+		while (first < end && (fBytes[first] & 0xff) <= ' ') {
+			first++;
+		}
+		if (first > start) {
+			System.arraycopy(fBytes, first, fBytes, start, end - first);
+		}
+		fLength = start + end - first;
+		return fLength > start;
+	}
+
+	public void reset() {
+		fLength = 0;
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(fBytes, 0, fLength);
+	}
+
+	@Override
+	public String toString() {
+		return new String(fBytes, 0, fLength, MIStringHandler.CHARSET);
+	}
+
+	static boolean isAscii(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void ensureCapacity(int extra) {
+		if (fLength + extra > fBytes.length) {
+			byte[] larger = new byte[Math.max(fBytes.length * 2, fLength + extra)];
+			System.arraycopy(fBytes, 0, larger, 0, fLength);
+			fBytes = larger;
+		}
+	}
+}
@@ -19,7 +19,7 @@ import gdb.mi.service.command.output.MIInfo;
 
 /**
  *
- *      -exec-continue [--all | --thread-group ID]
+ *      -exec-continue [--all | --thread-group ID | --thread ID]
  *
  *   Asynchronous command.  Resumes the execution of the inferior program
  *   until a breakpoint is encountered, or until the inferior exits.
@@ -44,6 +44,13 @@ public class MIExecContinue extends MICommand<MIInfo> {
 		this(false, groupId);
 	}
 
+	/**
+	 * Only the given thread, in non-stop mode.
+	 */
+	public MIExecContinue(int threadId) {
+		super("-exec-continue", new String[] { "--thread", Integer.toString(threadId) }); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
 	/*
 	 * The parameters allThreads and groupId are mutually exclusive.  allThreads must be false
 	 * if we are to use groupId.  The value of this method is to only have one place
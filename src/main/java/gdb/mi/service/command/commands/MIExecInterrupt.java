@@ -20,7 +20,7 @@ import gdb.mi.service.command.output.MIInfo;
 
 /**
  *
- *      -exec-interrupt [--all | --thread-group ID]
+ *      -exec-interrupt [--all | --thread-group ID | --thread ID]
  *
  *  Asynchronous command.  Interrupts the background execution of the
  *  target.  Note how the token associated with the stop message is the one
@@ -49,6 +49,13 @@ public class MIExecInterrupt extends MICommand<MIInfo> {
 		this(false, groupId);
 	}
 
+	/**
+	 * Only the given thread, in non-stop mode.
+	 */
+	public MIExecInterrupt(int threadId) {
+		super("-exec-interrupt", new String[] { "--thread", Integer.toString(threadId) }); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
 	/*
 	 * The parameters allThreads and groupId are mutually exclusive.  allThreads must be false
 	 * if we are to use groupId.  The value of this method is to only have one place
@@ -35,4 +35,14 @@ public class MIFileListExecSourceFiles extends MICommand<MiSourceFilesInfo> {
 	public MiSourceFilesInfo getResult(MIOutput out) {
 		return new MiSourceFilesInfo(out);
 	}
-}
\ No newline at end of file
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isStatic() {
+		return true;
+	}
+}
@@ -35,4 +35,9 @@ public class MIGDBVersion extends MICommand<MIGDBVersionInfo> {
 	public MIInfo getResult(MIOutput out) {
 		return new MIGDBVersionInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
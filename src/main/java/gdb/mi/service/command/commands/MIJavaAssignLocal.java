@@ -0,0 +1,25 @@
+package gdb.mi.service.command.commands;
+
+import gdb.mi.service.command.output.MIOutput;
+import gdb.mi.service.command.output.MIVarAssignInfo;
+
+/**
+ *
+ *     -java-assign-local THREAD FRAME NAME EXPRESSION
+ *
+ *  Assigns EXPRESSION to the argument or local NAME visible in the frame, leaving the selected thread and frame unchanged. Registered by
+ * the nativejdb.py script loaded into GDB; one round trip instead of -thread-select,
+ * -stack-select-frame and -var-assign.
+ *
+ */
+public class MIJavaAssignLocal extends MICommand<MIVarAssignInfo> {
+
+	public MIJavaAssignLocal(String threadId, int frameId, String name, String expression) {
+		super("-java-assign-local", new String[] {threadId, Integer.toString(frameId), name, expression }); //$NON-NLS-1$
+	}
+
+	@Override
+	public MIVarAssignInfo getResult(MIOutput out) {
+		return new MIVarAssignInfo(out);
+	}
+}
@@ -0,0 +1,37 @@
+package gdb.mi.service.command.commands;
+
+import gdb.mi.service.command.output.MIJavaFramesWithLocalsInfo;
+import gdb.mi.service.command.output.MIOutput;
+
+/**
+ *
+ *     -java-frames-with-locals THREAD LOW HIGH
+ *
+ *  Lists the frames LOW to HIGH of a thread, each with its arguments and locals,
+ * together with the depth of the whole stack. HIGH -1 lists up to the outermost
+ * frame. Registered by the nativejdb.py script loaded into GDB; one round trip
+ * instead of -stack-info-depth, -stack-list-frames and -stack-list-variables
+ * for every frame.
+ *
+ */
+public class MIJavaFramesWithLocals extends MICommand<MIJavaFramesWithLocalsInfo> {
+
+	public MIJavaFramesWithLocals(String threadId, int low, int high) {
+		super("-java-frames-with-locals", new String[] {threadId, Integer.toString(low), Integer.toString(high) }); //$NON-NLS-1$
+	}
+
+	@Override
+	public MIJavaFramesWithLocalsInfo getResult(MIOutput out) {
+		return new MIJavaFramesWithLocalsInfo(out);
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isBulkQuery() {
+		return true;
+	}
+}
@@ -133,5 +133,9 @@ public class MIListThreadGroups extends MICommand<MIListThreadGroupsInfo> {
 	public MIListThreadGroupsInfo getResult(MIOutput out) {
 		return new MIListThreadGroupsInfo(out);
 	}
-}
 
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+}
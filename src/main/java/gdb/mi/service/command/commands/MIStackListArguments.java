@@ -49,4 +49,9 @@ public class MIStackListArguments extends MICommand<MIStackListArgumentsInfo> {
 	public MIStackListArgumentsInfo getResult(MIOutput out) {
 		return new MIStackListArgumentsInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
@@ -65,4 +65,14 @@ public class MIStackListFrames extends MICommand<MIStackListFramesInfo> {
 	public MIStackListFramesInfo getResult(MIOutput out) {
 		return new MIStackListFramesInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isBulkQuery() {
+		return true;
+	}
 }
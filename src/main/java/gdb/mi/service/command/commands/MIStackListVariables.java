@@ -31,6 +31,7 @@ import java.util.ArrayList;
  *
  */
 public class MIStackListVariables extends MICommand<MIStackListVariablesInfo> {
+	private final boolean fThreadSpecified;
 
 	public MIStackListVariables(boolean printValues) {
 		this(printValues, "", "");
@@ -38,6 +39,7 @@ public class MIStackListVariables extends MICommand<MIStackListVariablesInfo> {
 
 	public MIStackListVariables(boolean printValues, String threadId, String frameId) {
 		super("-stack-list-variables");
+		fThreadSpecified = !threadId.isEmpty();
 
 		final ArrayList<String> arguments = new ArrayList<>();
 		if (!threadId.isEmpty()) {
@@ -65,4 +67,14 @@ public class MIStackListVariables extends MICommand<MIStackListVariablesInfo> {
 	public MIStackListVariablesInfo getResult(MIOutput out) {
 		return new MIStackListVariablesInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isBulkQuery() {
+		return fThreadSpecified;
+	}
 }
@@ -73,4 +73,14 @@ public class MISymbolInfoFunctions extends MICommand<MiSymbolInfoFunctionsInfo>
 	public MiSymbolInfoFunctionsInfo getResult(MIOutput out) {
 		return new MiSymbolInfoFunctionsInfo(out);
 	}
-}
\ No newline at end of file
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isStatic() {
+		return true;
+	}
+}
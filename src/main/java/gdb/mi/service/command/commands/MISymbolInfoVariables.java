@@ -71,4 +71,14 @@ public class MISymbolInfoVariables extends MICommand<MiSymbolInfoVariablesInfo>
 	public MiSymbolInfoVariablesInfo getResult(MIOutput out) {
 		return new MiSymbolInfoVariablesInfo(out);
 	}
-}
\ No newline at end of file
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isStatic() {
+		return true;
+	}
+}
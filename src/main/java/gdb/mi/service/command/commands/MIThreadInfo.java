@@ -28,17 +28,30 @@ import gdb.mi.service.command.output.MIThreadInfoInfo;
  *
  */
 public class MIThreadInfo extends MICommand<MIThreadInfoInfo> {
+	private final boolean fAllThreads;
 
 	public MIThreadInfo() {
 		super("-thread-info"); //$NON-NLS-1$
+		fAllThreads = true;
 	}
 
 	public MIThreadInfo(String threadId) {
 		super("-thread-info", new String[] { threadId }); //$NON-NLS-1$
+		fAllThreads = false;
 	}
 
 	@Override
 	public MIThreadInfoInfo getResult(MIOutput out) {
 		return new MIThreadInfoInfo(out);
 	}
-}
\ No newline at end of file
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isBulkQuery() {
+		return fAllThreads;
+	}
+}
@@ -0,0 +1,29 @@
+package gdb.mi.service.command.commands;
+
+import gdb.mi.service.command.output.MIOutput;
+import gdb.mi.service.command.output.MIThreadListIdsInfo;
+
+/**
+ *
+ *    -thread-list-ids
+ *
+ *  Produces a list of the currently known GDB thread ids. Unlike -thread-info
+ * it reports no frame, so GDB does not unwind any thread for it.
+ *
+ */
+public class MIThreadListIds extends MICommand<MIThreadListIdsInfo> {
+
+	public MIThreadListIds() {
+		super("-thread-list-ids"); //$NON-NLS-1$
+	}
+
+	@Override
+	public MIThreadListIdsInfo getResult(MIOutput out) {
+		return new MIThreadListIdsInfo(out);
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+}
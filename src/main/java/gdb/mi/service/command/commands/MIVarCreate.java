@@ -61,8 +61,22 @@ public class MIVarCreate extends MICommand<MIVarCreateInfo> {
 		super("-var-create", new String[] { name, frameAddr, expression }); //$NON-NLS-1$
 	}
 
+	/**
+	 * Creates the variable object in the frame with the given level of a thread,
+	 * without selecting the thread and frame first.
+	 */
+	public MIVarCreate(String threadId, int frameId, String name, String expression) {
+		super("-var-create", new String[] { "--thread", threadId, "--frame", Integer.toString(frameId), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				name, "*", expression }); //$NON-NLS-1$
+	}
+
 	@Override
 	public MIVarCreateInfo getResult(MIOutput out) {
 		return new MIVarCreateInfo(out);
 	}
+
+	@Override
+	public boolean isVarObjUpdate() {
+		return true;
+	}
 }
@@ -39,4 +39,9 @@ public class MIVarDelete extends MICommand<MIVarDeleteInfo> {
 	public MIVarDeleteInfo getResult(MIOutput out) {
 		return new MIVarDeleteInfo(out);
 	}
+
+	@Override
+	public boolean isVarObjUpdate() {
+		return true;
+	}
 }
@@ -43,4 +43,9 @@ public class MIVarEvaluateExpression extends MICommand<MIVarEvaluateExpressionIn
 	public MIVarEvaluateExpressionInfo getResult(MIOutput out) {
 		return new MIVarEvaluateExpressionInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
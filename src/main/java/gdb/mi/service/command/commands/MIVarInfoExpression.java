@@ -42,4 +42,9 @@ public class MIVarInfoExpression extends MICommand<MIVarInfoExpressionInfo> {
 	public MIVarInfoExpressionInfo getResult(MIOutput out) {
 		return new MIVarInfoExpressionInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
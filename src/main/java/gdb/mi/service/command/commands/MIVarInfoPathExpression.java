@@ -45,4 +45,9 @@ public class MIVarInfoPathExpression extends MICommand<MIVarInfoPathExpressionIn
 	public MIVarInfoPathExpressionInfo getResult(MIOutput out) {
 		return new MIVarInfoPathExpressionInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
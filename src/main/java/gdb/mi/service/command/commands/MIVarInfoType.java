@@ -39,4 +39,9 @@ public class MIVarInfoType extends MICommand<MIVarInfoTypeInfo> {
 	public MIVarInfoTypeInfo getResult(MIOutput out) {
 		return new MIVarInfoTypeInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
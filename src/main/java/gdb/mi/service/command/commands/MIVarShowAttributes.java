@@ -42,4 +42,9 @@ public class MIVarShowAttributes extends MICommand<MIVarShowAttributesInfo> {
 	public MIVarShowAttributesInfo getResult(MIOutput out) {
 		return new MIVarShowAttributesInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
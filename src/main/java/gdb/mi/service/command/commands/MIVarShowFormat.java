@@ -39,4 +39,9 @@ public class MIVarShowFormat extends MICommand<MIVarShowFormatInfo> {
 	public MIVarShowFormatInfo getResult(MIOutput out) {
 		return new MIVarShowFormatInfo(out);
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
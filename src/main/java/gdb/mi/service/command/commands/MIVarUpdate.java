@@ -44,4 +44,9 @@ public class MIVarUpdate extends MICommand<MIVarUpdateInfo> {
 	public MIVarUpdateInfo getResult(MIOutput out) {
 		return new MIVarUpdateInfo(out);
 	}
+
+	@Override
+	public boolean isVarObjUpdate() {
+		return true;
+	}
 }
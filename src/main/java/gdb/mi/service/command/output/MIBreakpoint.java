@@ -641,7 +641,7 @@ public class MIBreakpoint {
 	}
 
 	void parseLocations(MIList list) {
-		MIValue[] values = list.values;
+		MIValue[] values = list.getMIValues();
 		for (MIValue value: values) {
 			MITuple tuple = (MITuple) value;
 			MIResult[] results = tuple.getMIResults();
@@ -25,12 +25,36 @@ public class MIConst extends MIValue {
 
 	private String cstring = ""; //$NON-NLS-1$
 
+	/**
+	 * Line and offset of the still undecoded string, after its opening quote,
+	 * when created by a lazy {@link MIParser}; null once decoded.
+	 */
+	private volatile CharSequence source;
+	private int start;
+
 	public String getCString() {
+		if (source != null) {
+			materialize();
+		}
 		return cstring;
 	}
 
 	public void setCString(String str) {
 		cstring = str;
+		source = null;
+	}
+
+	void setSource(CharSequence line, int offset) {
+		start = offset;
+		source = line;
+	}
+
+	private synchronized void materialize() {
+		CharSequence line = source;
+		if (line != null) {
+			cstring = MIParser.translateCString(line, start);
+			source = null;
+		}
 	}
 
 	/**
@@ -38,7 +62,7 @@ public class MIConst extends MIValue {
 	 * @return The translated string.
 	 */
 	public String getString() {
-		return MIStringHandler.translateCString(cstring, true);
+		return MIStringHandler.translateCString(getCString(), true);
 	}
 
 	public static String getString(String str) {
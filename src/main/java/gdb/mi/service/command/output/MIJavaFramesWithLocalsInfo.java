@@ -0,0 +1,70 @@
+package gdb.mi.service.command.output;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * -java-frames-with-locals THREAD LOW HIGH
+ * ^done,depth="12",frames=[{level="0",addr="0x...",func="...",file="...",fullname="...",line="42",
+ *   locals=[{name="i",value="1"},...]},...]
+ */
+public class MIJavaFramesWithLocalsInfo extends MIInfo {
+
+	int depth = 0;
+	MIFrame[] frames;
+	MIArg[][] locals;
+
+	public MIJavaFramesWithLocalsInfo(MIOutput out) {
+		super(out);
+		List<MIFrame> frameList = new ArrayList<>();
+		List<MIArg[]> localsList = new ArrayList<>();
+		if (isDone()) {
+			MIResultRecord rr = out.getMIResultRecord();
+			if (rr != null) {
+				MIValue value = rr.getField("depth"); //$NON-NLS-1$
+				if (value instanceof MIConst) {
+					try {
+						depth = Integer.parseInt(((MIConst) value).getString().trim());
+					} catch (NumberFormatException e) {
+					}
+				}
+				value = rr.getField("frames"); //$NON-NLS-1$
+				if (value instanceof MIList) {
+					for (MIValue frame : ((MIList) value).getMIValues()) {
+						if (frame instanceof MITuple) {
+							frameList.add(new MIFrame((MITuple) frame));
+							MIValue vars = ((MITuple) frame).getField("locals"); //$NON-NLS-1$
+							localsList.add(vars instanceof MIList ? MIArg.getMIArgs((MIList) vars) : new MIArg[0]);
+						}
+					}
+				}
+			}
+		}
+		frames = frameList.toArray(new MIFrame[0]);
+		locals = localsList.toArray(new MIArg[0][]);
+	}
+
+	/**
+	 * Returns the number of frames on the stack, not only the listed ones.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	public MIFrame[] getMIFrames() {
+		return frames;
+	}
+
+	/**
+	 * Returns the arguments and locals of the frame with the given level, or null
+	 * if that frame was not listed.
+	 */
+	public MIArg[] getLocals(int level) {
+		for (int i = 0; i < frames.length; i++) {
+			if (frames[i].getLevel() == level) {
+				return locals[i];
+			}
+		}
+		return null;
+	}
+}
@@ -26,24 +26,60 @@ public class MIList extends MIValue {
 	MIResult[] results = nullResults;
 	MIValue[] values = nullValues;
 
+	/**
+	 * Line and offset of the still unparsed content, after the opening bracket,
+	 * when created by a lazy {@link MIParser}; null once parsed.
+	 */
+	private volatile CharSequence source;
+	private int start;
+
 	public MIResult[] getMIResults() {
+		if (source != null) {
+			materialize();
+		}
 		return results;
 	}
 
 	public void setMIResults(MIResult[] res) {
+		if (source != null) {
+			materialize();
+		}
 		results = res;
 	}
 
 	public MIValue[] getMIValues() {
+		if (source != null) {
+			materialize();
+		}
 		return values;
 	}
 
 	public void setMIValues(MIValue[] vals) {
+		if (source != null) {
+			materialize();
+		}
 		values = vals;
 	}
 
+	void setSource(CharSequence line, int offset) {
+		start = offset;
+		source = line;
+	}
+
+	private synchronized void materialize() {
+		CharSequence line = source;
+		if (line != null) {
+			MIList parsed = MIParser.parseList(line, start);
+			results = parsed.results;
+			values = parsed.values;
+			source = null;
+		}
+	}
+
 	@Override
 	public String toString() {
+		MIResult[] results = getMIResults();
+		MIValue[] values = getMIValues();
 		StringBuilder buffer = new StringBuilder();
 		buffer.append('[');
 		for (int i = 0; i < results.length; i++) {
@@ -16,6 +16,8 @@
 
 package gdb.mi.service.command.output;
 
+import java.util.function.Supplier;
+
 /**
  * GDB/MI response.
  */
@@ -24,6 +26,7 @@ public class MIOutput {
 	private final MIResultRecord rr;
 	private final MIOOBRecord[] oobs;
 	private MIStreamRecord[] streamRecords;
+	private Supplier<MIStreamRecord[]> streamRecordSource;
 
 	public MIOutput() {
 		this(null, (MIOOBRecord[]) null);
@@ -58,6 +61,23 @@ public class MIOutput {
 		assert streamRecords != null;
 	}
 
+	/**
+	 * Same as {@link #MIOutput(MIOOBRecord, MIStreamRecord[])}, but the stream
+	 * records are only fetched from the given source if they are asked for, which
+	 * most handlers never do.
+	 *
+	 * @param oob
+	 *            out-of-bound record
+	 * @param streamRecords
+	 *            source of the stream records that preceded the out-of-bound
+	 *            record. Must not be null
+	 */
+	public MIOutput(MIOOBRecord oob, Supplier<MIStreamRecord[]> streamRecords) {
+		this(null, new MIOOBRecord[] { oob });
+		this.streamRecordSource = streamRecords;
+		assert streamRecords != null;
+	}
+
 	/**
 	 * Constructor used when handling a command result.
 	 *
@@ -95,6 +115,9 @@ public class MIOutput {
 	 * @since 3.0
 	 */
 	public MIStreamRecord[] getStreamRecords() {
+		if (streamRecords == null && streamRecordSource != null) {
+			streamRecords = streamRecordSource.get();
+		}
 		return streamRecords;
 	}
 
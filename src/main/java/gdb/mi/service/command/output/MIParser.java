@@ -103,7 +103,25 @@ public class MIParser {
 	public String cliPrompt = primaryPrompt;
 	public String secondaryPrompt = ">"; //$NON-NLS-1$
 
-	public RecordType getRecordType(String line) {
+	private boolean fLazy;
+
+	/**
+	 * In lazy mode tuples, lists and C-strings of parsed records only remember
+	 * where they start in the line, and are parsed or decoded on first access.
+	 * Records then keep a String copy of their line, so it is safe to parse
+	 * lines backed by a reused buffer, and every value not yet materialised keeps
+	 * that whole copy alive. Eager parsing only keeps the substrings of the values,
+	 * and is the faster one when most of a record is read.
+	 */
+	public void setLazy(boolean lazy) {
+		fLazy = lazy;
+	}
+
+	public boolean isLazy() {
+		return fLazy;
+	}
+
+	public RecordType getRecordType(CharSequence line) {
 		int i = 0;
 		if (Character.isDigit(line.charAt(0))) {
 			i = 1;
@@ -114,7 +132,7 @@ public class MIParser {
 
 		if (i < line.length() && line.charAt(i) == '^') {
 			return RecordType.ResultRecord;
-		} else if (line.startsWith(primaryPrompt, i)) {
+		} else if (regionMatches(line, i, primaryPrompt)) {
 			return RecordType.PrimaryPrompt;
 			//break; // Do nothing.
 		} else {
@@ -125,54 +143,78 @@ public class MIParser {
 	/**
 	 *
 	 */
-	public MIResultRecord parseMIResultRecord(String line) {
-		StringBuffer buffer = new StringBuffer(line);
+	public MIResultRecord parseMIResultRecord(CharSequence line) {
+		Cursor cursor = newCursor(line);
+		MIResultRecord rr = parseResultClass(cursor);
+
+		// Results are separated by commas.
+		if (cursor.peek() == ',') {
+			cursor.pos++;
+			MIResult[] res = processMIResults(cursor);
+			rr.setMIResults(res);
+		}
+		return rr;
+	}
+
+	/**
+	 * Parses a result record, handing its results to the visitor as they are read
+	 * instead of adding them to the record. No values are retained, so memory use
+	 * does not grow with the number of results.
+	 */
+	public MIResultRecord parseMIResultRecord(CharSequence line, MIResultVisitor visitor) {
+		Cursor cursor = new Cursor(line, 0, false);
+		MIResultRecord rr = parseResultClass(cursor);
+
+		while (cursor.peek() == ',') {
+			cursor.pos++;
+			streamMIResult(cursor, visitor);
+		}
+		return rr;
+	}
+
+	/**
+	 * Parses the token and the result class of a result record.
+	 */
+	private static MIResultRecord parseResultClass(Cursor cursor) {
 		// Fetch the Token/Id
-		int id = parseToken(buffer);
+		int id = parseToken(cursor);
 		// Consume the '^'
-		buffer.deleteCharAt(0);
+		cursor.pos++;
 
 		MIResultRecord rr = new MIResultRecord();
 		rr.setToken(id);
-		if (buffer.toString().startsWith(MIResultRecord.DONE)) {
+		if (cursor.startsWith(MIResultRecord.DONE)) {
 			rr.setResultClass(MIResultRecord.DONE);
-			buffer.delete(0, MIResultRecord.DONE.length());
-		} else if (buffer.toString().startsWith(MIResultRecord.ERROR)) {
+			cursor.pos += MIResultRecord.DONE.length();
+		} else if (cursor.startsWith(MIResultRecord.ERROR)) {
 			rr.setResultClass(MIResultRecord.ERROR);
-			buffer.delete(0, MIResultRecord.ERROR.length());
-		} else if (buffer.toString().startsWith(MIResultRecord.EXIT)) {
+			cursor.pos += MIResultRecord.ERROR.length();
+		} else if (cursor.startsWith(MIResultRecord.EXIT)) {
 			rr.setResultClass(MIResultRecord.EXIT);
-			buffer.delete(0, MIResultRecord.EXIT.length());
-		} else if (buffer.toString().startsWith(MIResultRecord.RUNNING)) {
+			cursor.pos += MIResultRecord.EXIT.length();
+		} else if (cursor.startsWith(MIResultRecord.RUNNING)) {
 			rr.setResultClass(MIResultRecord.RUNNING);
-			buffer.delete(0, MIResultRecord.RUNNING.length());
-		} else if (buffer.toString().startsWith(MIResultRecord.CONNECTED)) {
+			cursor.pos += MIResultRecord.RUNNING.length();
+		} else if (cursor.startsWith(MIResultRecord.CONNECTED)) {
 			rr.setResultClass(MIResultRecord.CONNECTED);
-			buffer.delete(0, MIResultRecord.CONNECTED.length());
+			cursor.pos += MIResultRecord.CONNECTED.length();
 		} else {
 			// Error throw an exception?
 		}
-
-		// Results are separated by commas.
-		if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-			buffer.deleteCharAt(0);
-			MIResult[] res = processMIResults(new FSB(buffer));
-			rr.setMIResults(res);
-		}
 		return rr;
 	}
 
 	/**
 	 * Find OutOfBand Records depending on the starting token.
 	 */
-	public MIOOBRecord parseMIOOBRecord(String line) {
-		StringBuffer buffer = new StringBuffer(line);
-		int id = parseToken(buffer);
+	public MIOOBRecord parseMIOOBRecord(CharSequence line) {
+		Cursor cursor = newCursor(line);
+		int id = parseToken(cursor);
 		MIOOBRecord oob = null;
-		char c = buffer.length() != 0 ? buffer.charAt(0) : 0;
+		int c = cursor.peek();
 		if (c == '*' || c == '+' || c == '=') {
 			// Consume the first char
-			buffer.deleteCharAt(0);
+			cursor.pos++;
 			MIAsyncRecord async = null;
 			switch (c) {
 			case '*':
@@ -192,22 +234,21 @@ public class MIParser {
 			}
 			async.setToken(id);
 			// Extract the Async-Class
-			int i = buffer.toString().indexOf(',');
+			int i = cursor.indexOf(',');
 			if (i != -1) {
-				String asyncClass = buffer.substring(0, i);
-				async.setAsyncClass(asyncClass);
+				async.setAsyncClass(cursor.substring(i));
 				// Consume the async-class and the comma
-				buffer.delete(0, i + 1);
+				cursor.pos = i + 1;
 			} else {
-				async.setAsyncClass(buffer.toString().trim());
-				buffer.setLength(0);
+				async.setAsyncClass(cursor.substring(cursor.end).trim());
+				cursor.pos = cursor.end;
 			}
-			MIResult[] res = processMIResults(new FSB(buffer));
+			MIResult[] res = processMIResults(cursor);
 			async.setMIResults(res);
 			oob = async;
 		} else if (c == '~' || c == '@' || c == '&') {
 			// Consume the first char
-			buffer.deleteCharAt(0);
+			cursor.pos++;
 			MIStreamRecord stream = null;
 			switch (c) {
 			case '~':
@@ -225,13 +266,13 @@ public class MIParser {
 				assert false;
 				stream = new MIConsoleStreamOutput();
 			}
-			// translateCString() assumes that the leading " is deleted
-			if (buffer.length() > 0 && buffer.charAt(0) == '"') {
-				buffer.deleteCharAt(0);
+			// translateCString() assumes that the leading " is consumed
+			if (cursor.peek() == '"') {
+				cursor.pos++;
 			}
 			// Don't parse any backslashes - backslashes within stream records
 			// aren't escaped.
-			stream.setCString(translateCString(new FSB(buffer), false));
+			stream.setCString(translateCString(cursor, false));
 			oob = stream;
 		} else {
 			// Badly format MI line, just pass it to the user as target stream
@@ -242,21 +283,48 @@ public class MIParser {
 		return oob;
 	}
 
-	private int parseToken(StringBuffer buffer) {
+	private Cursor newCursor(CharSequence line) {
+		if (fLazy) {
+			return new Cursor(line.toString(), 0, true);
+		}
+		return new Cursor(line, 0, false);
+	}
+
+	/**
+	 * Parses the content of a lazily created tuple, starting after its '{'.
+	 */
+	static MITuple parseTuple(CharSequence line, int start) {
+		return processMITuple(new Cursor(line, start, true));
+	}
+
+	/**
+	 * Parses the content of a lazily created list, starting after its '['.
+	 */
+	static MIList parseList(CharSequence line, int start) {
+		return processMIList(new Cursor(line, start, true));
+	}
+
+	/**
+	 * Decodes a lazily created C-string value, starting after its opening quote.
+	 */
+	static String translateCString(CharSequence line, int start) {
+		return translateCString(new Cursor(line, start, false), true);
+	}
+
+	private static int parseToken(Cursor cursor) {
 		int id = -1;
 		// Fetch the Token/Id
-		if (Character.isDigit(buffer.charAt(0))) {
-			int i = 1;
-			while (i < buffer.length() && Character.isDigit(buffer.charAt(i))) {
+		if (Character.isDigit(cursor.peek())) {
+			int i = cursor.pos + 1;
+			while (i < cursor.end && Character.isDigit(cursor.seq.charAt(i))) {
 				i++;
 			}
-			String numbers = buffer.substring(0, i);
 			try {
-				id = Integer.parseInt(numbers);
+				id = Integer.parseInt(cursor.substring(i));
 			} catch (NumberFormatException e) {
 			}
 			// Consume the token.
-			buffer.delete(0, i);
+			cursor.pos = i;
 		}
 		return id;
 	}
@@ -265,15 +333,15 @@ public class MIParser {
 	 * Assuming that the usual leading comma was consumed.
 	 * Extract the MI Result comma seperated responses.
 	 */
-	private MIResult[] processMIResults(FSB buffer) {
+	private static MIResult[] processMIResults(Cursor cursor) {
 		List<MIResult> aList = new ArrayList<>();
-		MIResult result = processMIResult(buffer);
+		MIResult result = processMIResult(cursor);
 		if (result != null) {
 			aList.add(result);
 		}
-		while (buffer.length() > 0 && buffer.charAt(0) == ',') {
-			buffer.deleteCharAt(0);
-			result = processMIResult(buffer);
+		while (cursor.peek() == ',') {
+			cursor.pos++;
+			result = processMIResult(cursor);
 			if (result != null) {
 				aList.add(result);
 			}
@@ -282,84 +350,176 @@ public class MIParser {
 	}
 
 	/**
-	 * Construct the DsfMIResult.  Characters will be consume/delete
-	 * moving forward constructing the AST.
+	 * Construct the DsfMIResult.  The cursor moves forward over the
+	 * characters consumed while constructing the AST.
 	 */
-	private MIResult processMIResult(FSB buffer) {
+	private static MIResult processMIResult(Cursor cursor) {
 		MIResult result = new MIResult();
 		int equal;
-		if (buffer.length() > 0 && Character.isLetter(buffer.charAt(0)) && (equal = buffer.indexOf('=')) != -1) {
+		if (cursor.pos < cursor.end && Character.isLetter(cursor.peek()) && (equal = cursor.indexOf('=')) != -1) {
 			// Result is a variable and value
-			String variable = buffer.substring(0, equal);
+			String variable = variableName(cursor, equal);
 			result.setVariable(variable);
-			buffer.delete(0, equal + 1);
-			MIValue value = processMIValue(buffer);
+			cursor.pos = equal + 1;
+			MIValue value = processMIValue(cursor);
 			result.setMIValue(value);
 		} else {
-			MIValue value = processMIValue(buffer);
+			MIValue value = processMIValue(cursor);
 			if (value != null) {
 				// Result is a value only (bug 527419)
 				result.setMIValue(value);
 			} else {
-				result.setVariable(buffer.toString());
+				result.setVariable(cursor.substring(cursor.end));
 				result.setMIValue(new MIConst()); // Empty string:???
-				buffer.setLength(0);
+				cursor.pos = cursor.end;
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Field names which repeat in every entry of large results.
+	 */
+	private static final String[] COMMON_VARIABLES = { "name", "value", "type", "line", "id", "level", "addr", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+			"func", "file", "fullname", "frame", "args", "arg", "description", "filename", "symbols", "arch", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+			"target-id", "state", "core", "number", "thread-id", "exp", "numchild", "has_more" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+
+	/**
+	 * Returns the variable name ending at the given index, sharing the String
+	 * of common names instead of allocating one per result.
+	 */
+	private static String variableName(Cursor cursor, int to) {
+		int length = to - cursor.pos;
+		for (String name : COMMON_VARIABLES) {
+			if (name.length() == length && cursor.startsWith(name)) {
+				return name;
+			}
+		}
+		return cursor.substring(to);
+	}
+
 	/**
 	 * Find a DsfMIValue implementation or return null.
 	 */
-	private MIValue processMIValue(FSB buffer) {
+	private static MIValue processMIValue(Cursor cursor) {
 		MIValue value = null;
-		if (buffer.length() > 0) {
-			if (buffer.charAt(0) == '{') {
-				buffer.deleteCharAt(0);
-				value = processMITuple(buffer);
-			} else if (buffer.charAt(0) == '[') {
-				buffer.deleteCharAt(0);
-				value = processMIList(buffer);
-			} else if (buffer.charAt(0) == '"') {
-				buffer.deleteCharAt(0);
+		int c = cursor.peek();
+		if (cursor.lazy && (c == '{' || c == '[' || c == '"')) {
+			int start = ++cursor.pos;
+			if (c == '{') {
+				MITuple tuple = new MITuple();
+				tuple.setSource(cursor.seq, start);
+				skipContainer(cursor);
+				value = tuple;
+			} else if (c == '[') {
+				MIList list = new MIList();
+				list.setSource(cursor.seq, start);
+				skipContainer(cursor);
+				value = list;
+			} else {
 				MIConst cnst = new MIConst();
-				// Parse backslashes - backslashes within result
-				// and out of band records are escaped.
-				cnst.setCString(translateCString(buffer, true));
+				cnst.setSource(cursor.seq, start);
+				skipCString(cursor);
 				value = cnst;
 			}
+		} else if (c == '{') {
+			cursor.pos++;
+			value = processMITuple(cursor);
+		} else if (c == '[') {
+			cursor.pos++;
+			value = processMIList(cursor);
+		} else if (c == '"') {
+			cursor.pos++;
+			MIConst cnst = new MIConst();
+			// Parse backslashes - backslashes within result
+			// and out of band records are escaped.
+			cnst.setCString(translateCString(cursor, true));
+			value = cnst;
 		}
 		return value;
 	}
 
 	/**
-	 * Assuming the starting '{' was deleted form the StringBuffer,
-	 * go to the closing '}' consuming/deleting all the characters.
+	 * Streaming counterpart of {@link #processMIResult(Cursor)}.
+	 */
+	private static void streamMIResult(Cursor cursor, MIResultVisitor visitor) {
+		int equal;
+		if (cursor.pos < cursor.end && Character.isLetter(cursor.peek()) && (equal = cursor.indexOf('=')) != -1) {
+			String variable = variableName(cursor, equal);
+			cursor.pos = equal + 1;
+			streamMIValue(cursor, variable, visitor);
+		} else if (!streamMIValue(cursor, null, visitor)) {
+			visitor.constant(cursor.substring(cursor.end), ""); //$NON-NLS-1$
+			cursor.pos = cursor.end;
+		}
+	}
+
+	/**
+	 * Streaming counterpart of {@link #processMIValue(Cursor)}. Returns false if
+	 * there is no value at the cursor.
+	 */
+	private static boolean streamMIValue(Cursor cursor, String variable, MIResultVisitor visitor) {
+		int c = cursor.peek();
+		if (c == '{' || c == '[') {
+			cursor.pos++;
+			char close = c == '{' ? '}' : ']';
+			if (c == '{') {
+				visitor.startTuple(variable);
+			} else {
+				visitor.startList(variable);
+			}
+			while (cursor.pos < cursor.end && cursor.peek() != close) {
+				if (!streamMIValue(cursor, null, visitor)) {
+					streamMIResult(cursor, visitor);
+				}
+				if (cursor.peek() == ',') {
+					cursor.pos++;
+				}
+			}
+			if (cursor.peek() == close) {
+				cursor.pos++;
+			}
+			if (c == '{') {
+				visitor.endTuple();
+			} else {
+				visitor.endList();
+			}
+			return true;
+		} else if (c == '"') {
+			cursor.pos++;
+			visitor.constant(variable, translateCString(cursor, true));
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Assuming the starting '{' was consumed, go to the closing '}'
+	 * consuming all the characters.
 	 * This is usually call by processMIvalue();
 	 */
-	private MIValue processMITuple(FSB buffer) {
+	private static MITuple processMITuple(Cursor cursor) {
 		MITuple tuple = new MITuple();
 		List<MIValue> valueList = new ArrayList<>();
 		List<MIResult> resultList = new ArrayList<>();
 		// Catch closing '}'
-		while (buffer.length() > 0 && buffer.charAt(0) != '}') {
+		while (cursor.pos < cursor.end && cursor.peek() != '}') {
 			// Try for the DsfMIValue first
-			MIValue value = processMIValue(buffer);
+			MIValue value = processMIValue(cursor);
 			if (value != null) {
 				valueList.add(value);
 			} else {
-				MIResult result = processMIResult(buffer);
+				MIResult result = processMIResult(cursor);
 				if (result != null) {
 					resultList.add(result);
 				}
 			}
-			if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-				buffer.deleteCharAt(0);
+			if (cursor.peek() == ',') {
+				cursor.pos++;
 			}
 		}
-		if (buffer.length() > 0 && buffer.charAt(0) == '}') {
-			buffer.deleteCharAt(0);
+		if (cursor.peek() == '}') {
+			cursor.pos++;
 		}
 		MIValue[] values = valueList.toArray(new MIValue[valueList.size()]);
 		MIResult[] res = resultList.toArray(new MIResult[resultList.size()]);
@@ -369,31 +529,31 @@ public class MIParser {
 	}
 
 	/**
-	 * Assuming the leading '[' was deleted, find the closing
-	 * ']' consuming/delete chars from the StringBuffer.
+	 * Assuming the leading '[' was consumed, find the closing
+	 * ']' consuming chars from the cursor.
 	 */
-	private MIValue processMIList(FSB buffer) {
+	private static MIList processMIList(Cursor cursor) {
 		MIList list = new MIList();
 		List<MIValue> valueList = new ArrayList<>();
 		List<MIResult> resultList = new ArrayList<>();
 		// catch closing ']'
-		while (buffer.length() > 0 && buffer.charAt(0) != ']') {
+		while (cursor.pos < cursor.end && cursor.peek() != ']') {
 			// Try for the DsfMIValue first
-			MIValue value = processMIValue(buffer);
+			MIValue value = processMIValue(cursor);
 			if (value != null) {
 				valueList.add(value);
 			} else {
-				MIResult result = processMIResult(buffer);
+				MIResult result = processMIResult(cursor);
 				if (result != null) {
 					resultList.add(result);
 				}
 			}
-			if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-				buffer.deleteCharAt(0);
+			if (cursor.peek() == ',') {
+				cursor.pos++;
 			}
 		}
-		if (buffer.length() > 0 && buffer.charAt(0) == ']') {
-			buffer.deleteCharAt(0);
+		if (cursor.peek() == ']') {
+			cursor.pos++;
 		}
 		MIValue[] values = valueList.toArray(new MIValue[valueList.size()]);
 		MIResult[] res = resultList.toArray(new MIResult[resultList.size()]);
@@ -405,25 +565,44 @@ public class MIParser {
 	/**
 	 * MI C-String rather MIConst values are enclosed in double quotes
 	 * and any double quotes or backslashes in the string are escaped.
-	 * Assuming the starting double quote was removed. This method will
+	 * Assuming the starting double quote was consumed. This method will
 	 * stop at the closing double quote, remove the extra backslash escaping
 	 * and return the string __without__ the enclosing double quotes. The
-	 * original string buffer will move forward.
-	 * @param buffer The string buffer to read from.
+	 * cursor will move forward past the closing double quote.
+	 * @param cursor The cursor to read from.
 	 * @param parseBackslashes Defines whether backslashes should be parsed.
 	 * This parameter is necessary to differentiate between records which
 	 * contain escaped backslashes and records which do not.
 	 * @return The translated C string.
 	 */
-	private String translateCString(FSB buffer, boolean parseBackslashes) {
+	private static String translateCString(Cursor cursor, boolean parseBackslashes) {
+		// Most strings contain no escapes at all, return them as a plain substring.
+		int index = cursor.pos;
+		while (index < cursor.end) {
+			char c = cursor.seq.charAt(index);
+			if (c == '"') {
+				String s = cursor.substring(index);
+				cursor.pos = index + 1;
+				return s;
+			} else if (c == '\\') {
+				break;
+			}
+			index++;
+		}
+		if (index == cursor.end) {
+			String s = cursor.substring(index);
+			cursor.pos = index;
+			return s;
+		}
+
 		boolean escape = false;
 		boolean closingQuotes = false;
 
-		StringBuffer sb = new StringBuffer();
+		StringBuilder sb = new StringBuilder(index - cursor.pos + 16);
+		sb.append(cursor.seq, cursor.pos, index);
 
-		int index = 0;
-		for (; index < buffer.length() && !closingQuotes; index++) {
-			char c = buffer.charAt(index);
+		for (; index < cursor.end && !closingQuotes; index++) {
+			char c = cursor.seq.charAt(index);
 			if (c == '\\') {
 				if (escape) {
 					sb.append(c);
@@ -450,10 +629,47 @@ public class MIParser {
 				escape = false;
 			}
 		}
-		buffer.delete(0, index);
+		cursor.pos = index;
 		return sb.toString();
 	}
 
+	/**
+	 * Assuming the opening '{' or '[' was consumed, moves the cursor past the
+	 * matching closing one without building any values.
+	 */
+	private static void skipContainer(Cursor cursor) {
+		int depth = 1;
+		while (cursor.pos < cursor.end) {
+			char c = cursor.seq.charAt(cursor.pos++);
+			if (c == '"') {
+				skipCString(cursor);
+			} else if (c == '{' || c == '[') {
+				depth++;
+			} else if ((c == '}' || c == ']') && --depth == 0) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Assuming the opening double quote was consumed, moves the cursor past
+	 * the closing one, consuming exactly what {@link #translateCString(Cursor, boolean)}
+	 * would.
+	 */
+	private static void skipCString(Cursor cursor) {
+		boolean escape = false;
+		while (cursor.pos < cursor.end) {
+			char c = cursor.seq.charAt(cursor.pos++);
+			if (c == '\\') {
+				escape = !escape;
+			} else if (c == '"' && !escape) {
+				return;
+			} else {
+				escape = false;
+			}
+		}
+	}
+
 	/**
 	 * Tests if this string starts with the specified prefix beginning
 	 * a specified index.
@@ -463,14 +679,17 @@ public class MIParser {
 	 * @return  <code>true</code> if prefix starts value.
 	 */
 	public boolean startsWith(StringBuffer value, String prefix) {
-		int vlen = value.length();
+		return regionMatches(value, 0, prefix);
+	}
+
+	private static boolean regionMatches(CharSequence value, int offset, String prefix) {
 		int plen = prefix.length();
 
-		if (vlen < plen) {
+		if (offset < 0 || value.length() - offset < plen) {
 			return false;
 		}
 		for (int i = 0; i < plen; i++) {
-			if (value.charAt(i) != prefix.charAt(i)) {
+			if (value.charAt(offset + i) != prefix.charAt(i)) {
 				return false;
 			}
 		}
@@ -478,110 +697,49 @@ public class MIParser {
 	}
 
 	/**
-	 * Fast String Buffer class. MIParser does a lot
-	 * of deleting off the front of a string, that's clearly
-	 * an order N operation for StringBuffer which makes
-	 * the MIParser an order N^2 operation. There are "issues"
-	 * with this for large arrays. Use of FSB rather than String
-	 * Buffer makes MIParser N rather than N^2 because FSB can
-	 * delete from the front in constant time.
+	 * Read position over the line being parsed. The cursor only moves forward,
+	 * the underlying sequence is never copied or modified and values are taken
+	 * as substrings of it, which keeps parsing a single pass over the line.
 	 */
-	public class FSB {
-		StringBuffer buf;
+	private static final class Cursor {
+		final CharSequence seq;
+		final int end;
+		/** Whether values are created lazily, see {@link MIParser#setLazy(boolean)}. */
+		final boolean lazy;
 		int pos;
-		boolean shared;
 
-		public FSB(StringBuffer buf) {
-			this.buf = buf;
-			pos = 0;
-			shared = false;
+		Cursor(CharSequence seq, int start, boolean lazy) {
+			this.seq = seq;
+			this.end = seq.length();
+			this.lazy = lazy;
+			this.pos = start;
 		}
 
-		public FSB(FSB fbuf) {
-			pos = fbuf.pos;
-			buf = fbuf.buf;
-			shared = true;
-		}
-
-		public int length() {
-			int res = buf.length() - pos;
-			if (res < 0)
-				return 0;
-
-			return res;
-		}
-
-		public char charAt(int index) {
-			return buf.charAt(index + pos);
-		}
-
-		private void resolveCopy() {
-			if (shared) {
-				buf = new StringBuffer(buf.toString());
-				shared = false;
-			}
-		}
-
-		public FSB deleteCharAt(int index) {
-			if (index == 0) {
-				pos++;
-			} else {
-				resolveCopy();
-				buf = buf.deleteCharAt(pos + index);
-			}
-
-			return this;
-		}
-
-		public FSB delete(int start, int end) {
-			if (start == 0) {
-				pos = pos + end - start;
-			} else {
-				resolveCopy();
-				buf.delete(start + pos, end + pos);
-			}
-
-			return this;
-		}
-
-		public void setLength(int a) {
-			if (a == 0)
-				pos = buf.length();
-			else {
-				// panic! fortunately we don't do this.
-			}
-		}
-
-		public String substring(int start, int end) {
-			return buf.substring(start + pos, end + pos);
-		}
-
-		@Override
-		public String toString() {
-			return buf.substring(pos, buf.length());
+		/**
+		 * Returns the current character, or -1 at the end of the line.
+		 */
+		int peek() {
+			return pos < end ? seq.charAt(pos) : -1;
 		}
 
+		/**
+		 * Returns the absolute index of the next occurrence of c, or -1.
+		 */
 		int indexOf(char c) {
-			int len = buf.length();
-			for (int i = pos; i < len; i++) {
-				if (buf.charAt(i) == c)
-					return i - pos;
+			for (int i = pos; i < end; i++) {
+				if (seq.charAt(i) == c) {
+					return i;
+				}
 			}
-
 			return -1;
 		}
 
-		boolean startsWith(String s) {
-			int len = Math.min(s.length(), length());
-			if (len < s.length())
-				return false;
-
-			for (int i = 0; i < len; i++) {
-				if (s.charAt(i) != buf.charAt(pos + i))
-					return false;
-			}
+		String substring(int to) {
+			return seq.subSequence(pos, to).toString();
+		}
 
-			return true;
+		boolean startsWith(String s) {
+			return regionMatches(seq, pos, s);
 		}
 	}
 }
@@ -0,0 +1,191 @@
+package gdb.mi.service.command.output;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits GDB's MI output stream into records without decoding it into Strings first.
+ * <p>
+ * MI output is 7-bit ASCII, C-strings escape anything else, so the bytes read from
+ * GDB are kept in one reusable buffer and each record is handed to the {@link MIParser}
+ * as a {@link CharSequence} over that buffer. Only the values the parser retains are
+ * turned into Strings. Records are returned as soon as their line terminator has been
+ * read, so records that precede a long line in the same read are not held back by it;
+ * the buffer grows only while a single record does not fit.
+ * <p>
+ * Lines that do contain non ASCII bytes are decoded with {@link MIStringHandler#CHARSET}.
+ * <p>
+ * A line which must outlive the next read, e.g. to be parsed on another thread, is
+ * copied into a {@link Line} of its own, whose bytes can be reused for the next line
+ * copied.
+ */
+public class MIRecordReader {
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private final InputStream fInput;
+	private byte[] fBuffer;
+	/** Start of the first byte not yet returned. */
+	private int fStart;
+	/** End of the bytes read from the stream. */
+	private int fLimit;
+	/** Whether a '\n' directly following the last returned line must be skipped. */
+	private boolean fSkipLF;
+	private final Line fLine = new Line(null);
+
+	public MIRecordReader(InputStream input) {
+		this(input, DEFAULT_BUFFER_SIZE);
+	}
+
+	public MIRecordReader(InputStream input, int bufferSize) {
+		fInput = input;
+		fBuffer = new byte[bufferSize];
+	}
+
+	/**
+	 * Returns the next line, without its CR, LF or CR-LF terminator, or null at the
+	 * end of the stream. The returned line is only valid until the next call.
+	 */
+	public Line readLine() throws IOException {
+		// Bytes after fStart already known not to contain a terminator
+		int scanned = 0;
+		while (true) {
+			if (fSkipLF && fStart < fLimit) {
+				fSkipLF = false;
+				if (fBuffer[fStart] == '\n') {
+					fStart++;
+				}
+			}
+			for (int i = fStart + scanned; i < fLimit; i++) {
+				byte b = fBuffer[i];
+				if (b == '\n' || b == '\r') {
+					fLine.set(fBuffer, fStart, i);
+					fSkipLF = b == '\r';
+					fStart = i + 1;
+					return fLine;
+				}
+			}
+			scanned = fLimit - fStart;
+			if (!fill()) {
+				if (fStart == fLimit) {
+					return null;
+				}
+				// Last line without terminator
+				fLine.set(fBuffer, fStart, fLimit);
+				fStart = fLimit;
+				return fLine;
+			}
+		}
+	}
+
+	/**
+	 * Reads more bytes, compacting or growing the buffer when it is full.
+	 * Returns false at the end of the stream.
+	 */
+	private boolean fill() throws IOException {
+		if (fStart > 0) {
+			System.arraycopy(fBuffer, fStart, fBuffer, 0, fLimit - fStart);
+			fLimit -= fStart;
+			fStart = 0;
+		}
+		if (fLimit == fBuffer.length) {
+			byte[] larger = new byte[fBuffer.length * 2];
+			System.arraycopy(fBuffer, 0, larger, 0, fLimit);
+			fBuffer = larger;
+		}
+		int n = fInput.read(fBuffer, fLimit, fBuffer.length - fLimit);
+		if (n <= 0) {
+			return false;
+		}
+		fLimit += n;
+		return true;
+	}
+
+	/**
+	 * ASCII view over one line of bytes, either in the read buffer or in a copy of its
+	 * own whose byte array is kept when the copy is reused for another line.
+	 */
+	public static final class Line implements CharSequence {
+		private byte[] fBytes;
+		private int fOffset;
+		private int fLength;
+		/** The decoded line if it contains non ASCII bytes, null otherwise. */
+		private String fDecoded;
+
+		/**
+		 * Creates a line to copy other lines into, see {@link #copyTo(Line)}.
+		 */
+		public Line() {
+			this(new byte[256]);
+		}
+
+		private Line(byte[] bytes) {
+			fBytes = bytes;
+		}
+
+		void set(byte[] bytes, int start, int end) {
+			fBytes = bytes;
+			fOffset = start;
+			fLength = end - start;
+			fDecoded = null;
+			for (int i = start; i < end; i++) {
+				if (bytes[i] < 0) {
+					fDecoded = new String(bytes, start, fLength, MIStringHandler.CHARSET);
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Returns the size of the byte array of a copy, which only grows.
+		 */
+		public int capacity() {
+			return fBytes.length;
+		}
+
+		@Override
+		public int length() {
+			return fDecoded != null ? fDecoded.length() : fLength;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return fDecoded != null ? fDecoded.charAt(index) : (char) fBytes[fOffset + index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (fDecoded != null) {
+				return fDecoded.substring(start, end);
+			}
+			return new String(fBytes, fOffset + start, end - start, StandardCharsets.ISO_8859_1);
+		}
+
+		/**
+		 * Writes the raw bytes of the line, without allocating a String for it.
+		 */
+		public void writeTo(OutputStream out) throws IOException {
+			out.write(fBytes, fOffset, fLength);
+		}
+
+		/**
+		 * Copies the line into a line created with {@link #Line()}, replacing what it
+		 * held before.
+		 */
+		public void copyTo(Line copy) {
+			if (copy.fBytes.length < fLength) {
+				copy.fBytes = new byte[Math.max(fLength, copy.fBytes.length * 2)];
+			}
+			System.arraycopy(fBytes, fOffset, copy.fBytes, 0, fLength);
+			copy.fOffset = 0;
+			copy.fLength = fLength;
+			copy.fDecoded = fDecoded;
+		}
+
+		@Override
+		public String toString() {
+			return fDecoded != null ? fDecoded : new String(fBytes, fOffset, fLength, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package gdb.mi.service.command.output;
+
+/**
+ * Receives the results of a result record one at a time, as the parser reads
+ * them, instead of a tree of {@link MIValue}s. Tuple and list values are reported
+ * as start and end events around their content. The variable is null for the
+ * values of a list, which have no name.
+ *
+ * @see gdb.mi.service.command.commands.MICommand#setResultVisitor(MIResultVisitor)
+ */
+public interface MIResultVisitor {
+
+	void startTuple(String variable);
+
+	void endTuple();
+
+	void startList(String variable);
+
+	void endList();
+
+	/**
+	 * A C-string value, with its escapes already translated.
+	 */
+	void constant(String variable, String value);
+}
@@ -18,6 +18,7 @@ import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.EnumSet;
 import java.util.LinkedHashMap;
@@ -30,6 +31,12 @@ import java.util.Map.Entry;
  */
 public class MIStringHandler {
 
+	/**
+	 * The charset of GDB's MI output and of the commands sent to it, in which escaped
+	 * bytes are decoded too.
+	 */
+	public static final Charset CHARSET = StandardCharsets.UTF_8;
+
 	/**
 	 * A map of special characters which are used within escape notations to represent a
 	 * corresponding Unicode code point (i.e. character code).
@@ -52,6 +59,20 @@ public class MIStringHandler {
 		fSpecialCharactersToCodePointMap.put('?', 0x3F); // Literal question mark
 	}
 
+	/**
+	 * The buffers of a thread for parsing strings with escape notations, reused for all
+	 * strings the thread parses.
+	 */
+	private static final class ParseBuffers {
+		final StringBuilder buffer = new StringBuilder(256);
+		final StringBuilder escapeBuffer = new StringBuilder(16);
+	}
+
+	private static final ThreadLocal<ParseBuffers> fParseBuffers = ThreadLocal.withInitial(ParseBuffers::new);
+
+	/** Buffers grown beyond this are dropped after use rather than kept by the thread. */
+	private static final int MAX_KEPT_BUFFER = 64 * 1024;
+
 	/**
 	 * An internal helper enumeration which holds the current status while parsing an escaped
 	 * text sequence.
@@ -77,6 +98,10 @@ public class MIStringHandler {
 	 * @return The translated string.
 	 */
 	public static String translateCString(String str, boolean escapeChars) {
+		if (isPlainAscii(str)) {
+			// Most strings, e.g. names, paths and numbers, are left as they are
+			return str;
+		}
 		if (escapeChars) {
 			// Don't parse the special character escape notations here. We can do this here because
 			// we want to keep them in their escaped form anyway, and because the following string
@@ -108,6 +133,23 @@ public class MIStringHandler {
 		return str;
 	}
 
+	/**
+	 * Returns whether the given string consists of printable ASCII characters other than the
+	 * backslash only. Translating such a string leaves it unchanged. The loop has no branches,
+	 * so that the JIT can unroll and vectorize it.
+	 * @param str The string to test.
+	 * @return The test result.
+	 */
+	static boolean isPlainAscii(String str) {
+		int bits = 0;
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			// Negative for a control character, a non-ASCII character or a backslash
+			bits |= (c - 0x20) | (0x7E - c) | ((c ^ '\\') - 1);
+		}
+		return bits >= 0;
+	}
+
 	/**
 	 * Returns whether the given character is a special character, or not.
 	 * @param c The character to test.
@@ -191,8 +233,14 @@ public class MIStringHandler {
 	 * @return The parsed string.
 	 */
 	public static String parseString(String str, EnumSet<ParseFlags> parseFlags) {
-		StringBuilder buffer = new StringBuilder();
-		StringBuilder escapeBuffer = new StringBuilder();
+		if (str.indexOf('\\') < 0) {
+			// Nothing is escaped.
+			return str;
+		}
+		ParseBuffers buffers = fParseBuffers.get();
+		StringBuilder buffer = buffers.buffer;
+		StringBuilder escapeBuffer = buffers.escapeBuffer;
+		buffer.setLength(0);
 		EscapeStatus escStatus = EscapeStatus.NONE;
 
 		for (int i = 0; i < str.length(); i++) {
@@ -248,7 +296,7 @@ public class MIStringHandler {
 					if (escapeBuffer.length() > 2) {
 						// Decode the hexadecimal number.
 						try {
-							int codePoint = Integer.parseInt(escapeBuffer.toString().substring(2), 16);
+							int codePoint = Integer.parseInt(escapeBuffer, 2, escapeBuffer.length(), 16);
 							if (codePoint <= 0x10FFFF) {
 								buffer.appendCodePoint(codePoint);
 								escStatus = EscapeStatus.VALID;
@@ -271,7 +319,7 @@ public class MIStringHandler {
 					// we know that it's actually valid. Decode the hexadecimal number.
 					escStatus = EscapeStatus.INVALID;
 					try {
-						int codePoint = Integer.parseInt(escapeBuffer.toString().substring(2), 16);
+						int codePoint = Integer.parseInt(escapeBuffer, 2, escapeBuffer.length(), 16);
 						if (codePoint <= 0x10FFFF) {
 							buffer.appendCodePoint(codePoint);
 							escStatus = EscapeStatus.VALID;
@@ -296,7 +344,7 @@ public class MIStringHandler {
 					if (escapeBuffer.length() > 1) {
 						// Decode the octal number.
 						try {
-							int codePoint = Integer.parseInt(escapeBuffer.toString().substring(1), 8);
+							int codePoint = Integer.parseInt(escapeBuffer, 1, escapeBuffer.length(), 8);
 							if (codePoint <= 0xFF) {
 								buffer.appendCodePoint(codePoint);
 								escStatus = EscapeStatus.VALID;
@@ -329,7 +377,12 @@ public class MIStringHandler {
 		}
 
 		// Convert the buffer into a string and return it.
-		return buffer.toString();
+		String parsed = buffer.toString();
+		if (buffer.capacity() > MAX_KEPT_BUFFER) {
+			buffers.buffer.setLength(0);
+			buffers.buffer.trimToSize();
+		}
+		return parsed;
 	}
 
 	/**
@@ -352,14 +405,14 @@ public class MIStringHandler {
 		try {
 			// First, try to encode the string as Latin-1 in order to obtain the binary byte
 			// representation of the string.
-			CharsetEncoder latin1Encoder = Charset.forName("ISO-8859-1").newEncoder(); //$NON-NLS-1$
+			CharsetEncoder latin1Encoder = StandardCharsets.ISO_8859_1.newEncoder();
 			ByteBuffer stringBytes = latin1Encoder.encode(CharBuffer.wrap(str.toCharArray()));
 
 			// Next, try to decode the string as UTF-8. This will almost certainly only succeed
 			// if the string actually *is* encoded in UTF-8. Note that if the decoding fails,
 			// an exception is thrown before the str variable is assigned. The original string
 			// is therefore left unchanged in this case.
-			CharsetDecoder utf8Decoder = Charset.forName("UTF-8").newDecoder(); //$NON-NLS-1$
+			CharsetDecoder utf8Decoder = CHARSET.newDecoder();
 			str = utf8Decoder.decode(stringBytes).toString();
 		} catch (Exception e) {
 		}
@@ -0,0 +1,127 @@
+package gdb.mi.service.command.output;
+
+/**
+ * Streams the entries of symbol and source file listings, i.e. the results of
+ * -symbol-info-functions, -symbol-info-variables and -file-list-exec-source-files,
+ * without building {@link MiSymbolInfoFunctionsInfo}, {@link MiSymbolInfoVariablesInfo}
+ * or {@link MiSourceFilesInfo}. Each file is reported before its symbols. Symbols
+ * without debug information are left out, as by those classes.
+ * <p>
+ * The methods are called on the thread parsing GDB's output, and should return
+ * quickly.
+ */
+public abstract class MISymbolVisitor implements MIResultVisitor {
+	/** Depth of the tuples and lists entered */
+	private int fDepth;
+	/** Depth of the tuple of the current file, or -1 */
+	private int fFileDepth = -1;
+	/** Depth of the tuple of the current symbol, or -1 */
+	private int fSymbolDepth = -1;
+	/** Whether the list being entered holds files, respectively symbols of a file */
+	private boolean fInFileList;
+	private boolean fInSymbolList;
+	private boolean fFileVisited;
+
+	private String fFilename;
+	private String fFullname;
+	private String fName;
+	private String fType;
+	private String fDescription;
+	private int fLine;
+
+	/**
+	 * A source file, with the symbols defined in it following.
+	 */
+	protected abstract void visitFile(String filename, String fullname);
+
+	/**
+	 * A symbol of the last visited file. Source file listings have none.
+	 */
+	protected abstract void visitSymbol(String name, String type, String description, int line);
+
+	@Override
+	public void startTuple(String variable) {
+		fDepth++;
+		if (fInFileList && fFileDepth < 0) {
+			fFileDepth = fDepth;
+			fFilename = null;
+			fFullname = null;
+			fFileVisited = false;
+		} else if (fInSymbolList && fSymbolDepth < 0) {
+			fSymbolDepth = fDepth;
+			fName = null;
+			fType = null;
+			fDescription = null;
+			fLine = 0;
+		}
+		fInFileList = false;
+		fInSymbolList = false;
+	}
+
+	@Override
+	public void endTuple() {
+		if (fDepth == fSymbolDepth) {
+			visitSymbol(fName, fType, fDescription, fLine);
+			fSymbolDepth = -1;
+			fInSymbolList = true;
+		} else if (fDepth == fFileDepth) {
+			visitFileOnce();
+			fFileDepth = -1;
+			fInFileList = true;
+		}
+		fDepth--;
+	}
+
+	@Override
+	public void startList(String variable) {
+		fDepth++;
+		fInFileList = fFileDepth < 0 && ("debug".equals(variable) || "files".equals(variable)); //$NON-NLS-1$ //$NON-NLS-2$
+		fInSymbolList = fFileDepth == fDepth - 1 && "symbols".equals(variable); //$NON-NLS-1$
+		if (fInSymbolList) {
+			visitFileOnce();
+		}
+	}
+
+	@Override
+	public void endList() {
+		fInFileList = false;
+		fInSymbolList = false;
+		fDepth--;
+	}
+
+	@Override
+	public void constant(String variable, String value) {
+		if (fDepth == fSymbolDepth) {
+			switch (variable == null ? "" : variable) { //$NON-NLS-1$
+			case "name": //$NON-NLS-1$
+				fName = value;
+				break;
+			case "type": //$NON-NLS-1$
+				fType = value;
+				break;
+			case "description": //$NON-NLS-1$
+				fDescription = value;
+				break;
+			case "line": //$NON-NLS-1$
+				try {
+					fLine = Integer.parseInt(value);
+				} catch (NumberFormatException e) {
+				}
+				break;
+			}
+		} else if (fDepth == fFileDepth) {
+			if ("filename".equals(variable) || "file".equals(variable)) { //$NON-NLS-1$ //$NON-NLS-2$
+				fFilename = value;
+			} else if ("fullname".equals(variable)) { //$NON-NLS-1$
+				fFullname = value;
+			}
+		}
+	}
+
+	private void visitFileOnce() {
+		if (!fFileVisited) {
+			fFileVisited = true;
+			visitFile(fFilename, fFullname);
+		}
+	}
+}
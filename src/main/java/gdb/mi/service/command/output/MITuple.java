@@ -31,19 +31,50 @@ public class MITuple extends MIValue {
 	private MIValue[] values = NULL_VALUES;
 	private Map<String, MIValue> name2value;
 
+	/**
+	 * Line and offset of the still unparsed content, after the opening brace,
+	 * when created by a lazy {@link MIParser}; null once parsed.
+	 */
+	private volatile CharSequence source;
+	private int start;
+
 	public MIResult[] getMIResults() {
+		if (source != null) {
+			materialize();
+		}
 		return results;
 	}
 
 	public void setMIResults(MIResult[] res) {
+		if (source != null) {
+			materialize();
+		}
 		results = res;
 		name2value = null;
 	}
 
 	public MIValue[] getMIValues() {
+		if (source != null) {
+			materialize();
+		}
 		return values;
 	}
 
+	void setSource(CharSequence line, int offset) {
+		start = offset;
+		source = line;
+	}
+
+	private synchronized void materialize() {
+		CharSequence line = source;
+		if (line != null) {
+			MITuple parsed = MIParser.parseTuple(line, start);
+			results = parsed.results;
+			values = parsed.values;
+			source = null;
+		}
+	}
+
 	/** Return the value of the specified field of this tuple.
 	 *
 	 * @since 4.6
@@ -51,7 +82,7 @@ public class MITuple extends MIValue {
 	public MIValue getField(String name) {
 		if (name2value == null) {
 			name2value = new HashMap<>();
-			for (MIResult r : results) {
+			for (MIResult r : getMIResults()) {
 				name2value.put(r.getVariable(), r.getMIValue());
 			}
 		}
@@ -59,6 +90,9 @@ public class MITuple extends MIValue {
 	}
 
 	public void setMIValues(MIValue[] vals) {
+		if (source != null) {
+			materialize();
+		}
 		values = vals;
 	}
 
@@ -71,6 +105,8 @@ public class MITuple extends MIValue {
 	// Intentionally package private, should only be used by ourselves and
 	// MIResultRecord.
 	String toString(String start, String end) {
+		MIResult[] results = getMIResults();
+		MIValue[] values = getMIValues();
 		StringBuilder buffer = new StringBuilder();
 		buffer.append(start);
 		for (int i = 0; i < results.length; i++) {
@@ -0,0 +1,304 @@
+package jdwp;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.output.MIArg;
+import gdb.mi.service.command.output.MIAsyncRecord;
+import gdb.mi.service.command.output.MIConst;
+import gdb.mi.service.command.output.MIFrame;
+import gdb.mi.service.command.output.MIJavaFramesWithLocalsInfo;
+import gdb.mi.service.command.output.MIResult;
+import gdb.mi.service.command.output.MIResultRecord;
+import gdb.mi.service.command.output.MIStackInfoDepthInfo;
+import gdb.mi.service.command.output.MIStackListFramesInfo;
+import gdb.mi.service.command.output.MIValue;
+import jdwp.jdi.LocationImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stacks of the suspended threads, each listed at most once per stop and kept with
+ * the Java locations of its frames. ThreadReference.Frames and FrameCount and the
+ * StackFrame commands of one stop are all served from the same listing; the stack of
+ * a thread is dropped as soon as the thread runs or stops again. Only the stacks of
+ * the most recently used threads are kept.
+ *
+ * Stacks are listed from the top in pages, only as far down as the frames asked for,
+ * so a deep stack costs no more than the few frames the IDE shows. Native frames are
+ * skipped, so the Java frame indexes of JDWP are mapped to GDB levels through an
+ * index built while listing.
+ *
+ * Frame ids are the GDB levels of the frames.
+ */
+public class FrameCache {
+    private static final int MAX_THREADS = Integer.getInteger("native.frame.cache.threads", 64);
+    private static final int PAGE_SIZE = Integer.getInteger("native.frame.page.size", 32);
+
+    /**
+     * The stack of one thread at one stop, as far as it was listed.
+     */
+    static class Stack {
+        private final long threadId;
+        /** Frames listed so far, by level */
+        private final List<MIFrame> frames = new ArrayList<>();
+        /** Java location of each listed frame, null for a native frame */
+        private final List<LocationImpl> locations = new ArrayList<>();
+        /** Locals of each listed frame, null without the MI commands of nativejdb.py */
+        private final List<MIArg[]> locals = new ArrayList<>();
+        /** Level of each Java frame listed so far, by Java frame index */
+        private int[] javaLevels = new int[16];
+        private int javaFrames = 0;
+        /** Number of frames on the whole stack, -1 while unknown */
+        private int depth = -1;
+
+        Stack(long threadId) {
+            this.threadId = threadId;
+        }
+
+        private void add(MIFrame frame, MIArg[] frameLocals) {
+            if (frame.getLevel() != frames.size()) {
+                return; // Listed already
+            }
+            LocationImpl location = Translator.locationLookup(frame.getFunction(), frame.getLine());
+            frames.add(frame);
+            locations.add(location);
+            locals.add(frameLocals);
+            if (location != null) {
+                if (javaFrames == javaLevels.length) {
+                    javaLevels = Arrays.copyOf(javaLevels, javaFrames * 2);
+                }
+                javaLevels[javaFrames++] = frame.getLevel();
+            }
+        }
+
+        private boolean isComplete() {
+            return depth >= 0 && frames.size() >= depth;
+        }
+
+        long getThreadId() {
+            return threadId;
+        }
+
+        /**
+         * Returns the function of a listed frame.
+         */
+        synchronized String getFunction(long level) {
+            return frames.get((int) level).getFunction();
+        }
+
+        /**
+         * Returns the height of a listed frame above the bottom of the stack, which
+         * stays the same while the frames above it change. Needs the depth.
+         */
+        synchronized int getHeight(long level) {
+            return depth - (int) level;
+        }
+
+        /**
+         * Returns the number of Java frames listed so far.
+         */
+        synchronized int getJavaFrames() {
+            return javaFrames;
+        }
+
+        /**
+         * Returns the level of a listed Java frame.
+         */
+        synchronized int getJavaLevel(int index) {
+            return javaLevels[index];
+        }
+
+        /**
+         * Returns the Java location of a listed frame, or null if it is no Java frame.
+         */
+        synchronized LocationImpl getLocation(long level) {
+            return level >= 0 && level < locations.size() ? locations.get((int) level) : null;
+        }
+
+        /**
+         * Returns the arguments and locals of a listed frame if they came with the
+         * listing, null otherwise.
+         */
+        synchronized MIArg[] getLocals(long level) {
+            return level >= 0 && level < locals.size() ? locals.get((int) level) : null;
+        }
+    }
+
+    private final GDBControl gc;
+    private final Map<Long, Stack> stacks = new LinkedHashMap<Long, Stack>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Stack> eldest) {
+            return size() > MAX_THREADS;
+        }
+    };
+
+    public FrameCache(GDBControl gc) {
+        this.gc = gc;
+    }
+
+    /**
+     * Returns the stack of a suspended thread, nothing of which may be listed yet.
+     */
+    synchronized Stack getStack(long threadId) {
+        return stacks.computeIfAbsent(threadId, Stack::new);
+    }
+
+    /**
+     * Lists the stack at least down to the given number of Java frames, -1 for all.
+     * Sets the error code of the answer and returns false if GDB cannot list it.
+     */
+    boolean listJavaFrames(Stack stack, int count, PacketStream answer) {
+        synchronized (stack) {
+            int pageSize = PAGE_SIZE;
+            while ((count < 0 || stack.javaFrames < count) && !stack.isComplete()) {
+                if (!listPage(stack, count < 0 ? -1 : pageSize, answer)) {
+                    return false;
+                }
+                pageSize *= 2;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Lists the stack at least down to the frame with the given level. Sets the error
+     * code of the answer and returns false if GDB cannot list it.
+     */
+    boolean listLevel(Stack stack, long level, PacketStream answer) {
+        synchronized (stack) {
+            while (stack.frames.size() <= level && !stack.isComplete()) {
+                if (!listPage(stack, (int) Math.max(PAGE_SIZE, level + 1 - stack.frames.size()), answer)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of Java frames of a stack, or -1 after setting the error code
+     * of the answer. Native frames can only be told apart from Java frames once they
+     * are listed, so the rest of the stack is listed in one go if it was not yet.
+     */
+    int getJavaFrameCount(Stack stack, PacketStream answer) {
+        synchronized (stack) {
+            if (!listJavaFrames(stack, -1, answer)) {
+                return -1;
+            }
+            return stack.javaFrames;
+        }
+    }
+
+    /**
+     * Lists the next frames of a stack, all remaining ones for -1.
+     */
+    private boolean listPage(Stack stack, int size, PacketStream answer) {
+        String threadId = String.valueOf(stack.threadId);
+        int low = stack.frames.size();
+        if (gc.hasJavaMICommands()) {
+            // The depth comes with the frames
+            System.out.println("Queueing MI command to get frames " + low + " to " + (size < 0 ? "end" : low + size - 1));
+            MICommand cmd = gc.getCommandFactory().createMIJavaFramesWithLocals(threadId, low, size < 0 ? -1 : low + size - 1);
+            int tokenID = JDWP.getNewTokenId();
+            gc.queueCommand(tokenID, cmd);
+
+            MIJavaFramesWithLocalsInfo reply = (MIJavaFramesWithLocalsInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
+            if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+                answer.pkt.errorCode = JDWP.Error.INTERNAL;
+                return false;
+            }
+            stack.depth = reply.getDepth();
+            for (MIFrame frame : reply.getMIFrames()) {
+                stack.add(frame, reply.getLocals(frame.getLevel()));
+            }
+            if (stack.frames.size() == low) {
+                // Nothing more to list, whatever the depth said
+                stack.depth = low;
+            }
+            return true;
+        }
+
+        // GDB fails to list frames below the bottom of the stack
+        if (stack.depth < 0 && !listDepth(stack, answer)) {
+            return false;
+        }
+        int high = size < 0 ? stack.depth - 1 : Math.min(stack.depth - 1, low + size - 1);
+        if (high < low) {
+            return true;
+        }
+        System.out.println("Queueing MI command to get frames " + low + " to " + high);
+        MICommand cmd = gc.getCommandFactory().createMIStackListFrames(threadId, low, high);
+        int tokenID = JDWP.getNewTokenId();
+        gc.queueCommand(tokenID, cmd);
+
+        MIStackListFramesInfo reply = (MIStackListFramesInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
+        if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+            answer.pkt.errorCode = JDWP.Error.INTERNAL;
+            return false;
+        }
+        MIFrame[] frames = reply.getMIFrames();
+        for (MIFrame frame : frames) {
+            stack.add(frame, null);
+        }
+        if (stack.frames.size() < high + 1) {
+            // The stack is not as deep as it was said to be
+            stack.depth = stack.frames.size();
+        }
+        return true;
+    }
+
+    private boolean listDepth(Stack stack, PacketStream answer) {
+        if (gc.hasJavaMICommands()) {
+            return listPage(stack, PAGE_SIZE, answer);
+        }
+        System.out.println("Queueing MI command to get stack depth");
+        MICommand cmd = gc.getCommandFactory().createMIStackInfoDepth(String.valueOf(stack.threadId));
+        int tokenID = JDWP.getNewTokenId();
+        gc.queueCommand(tokenID, cmd);
+
+        MIStackInfoDepthInfo reply = (MIStackInfoDepthInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
+        if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+            answer.pkt.errorCode = JDWP.Error.INTERNAL;
+            return false;
+        }
+        stack.depth = reply.getDepth();
+        return true;
+    }
+
+    /**
+     * Drops the stacks of the threads a *running or *stopped record is about.
+     */
+    public void invalidate(MIAsyncRecord record) {
+        String threadId = null;
+        for (MIResult result : record.getMIResults()) {
+            MIValue value = result.getMIValue();
+            if ("stopped-threads".equals(result.getVariable())) {
+                // A list of threads in non-stop mode, "all" otherwise
+                threadId = value instanceof MIConst ? ((MIConst) value).getString() : threadId;
+                break;
+            } else if ("thread-id".equals(result.getVariable()) && value instanceof MIConst) {
+                threadId = ((MIConst) value).getString();
+            }
+        }
+        invalidate(threadId);
+    }
+
+    /**
+     * Drops the stack of a thread which runs or stopped again, or of all threads
+     * for "all" or null.
+     */
+    public synchronized void invalidate(String threadId) {
+        if (threadId == null || "all".equals(threadId)) {
+            stacks.clear();
+        } else {
+            try {
+                stacks.remove(Long.parseLong(threadId));
+            } catch (NumberFormatException e) {
+                stacks.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package jdwp;
+
+import gdb.gdb.GDBTypeParser;
+import gdb.gdb.GDBTypeParser.GDBType;
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.output.MIResultRecord;
+import gdb.mi.service.command.output.MIVarAssignInfo;
+import gdb.mi.service.command.output.MIVarChange;
+import gdb.mi.service.command.output.MIVarCreateInfo;
+import gdb.mi.service.command.output.MIVarUpdateInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Values of the locals of the suspended frames, backed by GDB variable objects.
+ * The variable object of a local is created the first time the local is asked for
+ * and kept for as long as its frame lives. After each stop, a single -var-update of
+ * all variable objects brings the values of those which changed up to date and
+ * reports those whose frame returned, so the locals of a frame cost one MI command
+ * per stop however many of them are read.
+ *
+ * A frame is identified by its thread, its height above the bottom of the stack,
+ * which does not change while frames are pushed and popped above it, and the function
+ * running in it. GDB binds each variable object to the frame it was created in.
+ */
+public class FrameVariables {
+
+    /**
+     * The variable object of one local.
+     */
+    static class Var {
+        private final String name;
+        private final Frame frame;
+        private final String local;
+        private GDBType type;
+        private String value;
+
+        Var(String name, Frame frame, String local, GDBType type, String value) {
+            this.name = name;
+            this.frame = frame;
+            this.local = local;
+            this.type = type;
+            this.value = value;
+        }
+
+        /**
+         * Returns the name GDB knows the variable object by.
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the GDB type of the local.
+         */
+        GDBType getType() {
+            return type;
+        }
+
+        /**
+         * Returns the value of the local as GDB prints it.
+         */
+        String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * The variable objects of the locals of one frame, by local name.
+     */
+    private static class Frame {
+        private final String function;
+        private final Map<String, Var> locals = new HashMap<>();
+
+        Frame(String function) {
+            this.function = function;
+        }
+    }
+
+    private final GDBControl gc;
+    private final GDBTypeParser typeParser = new GDBTypeParser();
+
+    /** Frames by thread and height */
+    private final Map<Long, Map<Integer, Frame>> frames = new HashMap<>();
+    /** All variable objects, by their GDB name */
+    private final Map<String, Var> vars = new HashMap<>();
+
+    /** Counted on the MI dispatch thread, which must not wait for the lock */
+    private final AtomicLong stop = new AtomicLong();
+    /** Stop at which the values were updated the last time */
+    private long updatedStop = 0;
+
+    public FrameVariables(GDBControl gc) {
+        this.gc = gc;
+    }
+
+    /**
+     * Called when the target stopped.
+     */
+    public void stopped() {
+        stop.incrementAndGet();
+    }
+
+    /**
+     * Returns the variable object of a local of a listed Java frame, or null after
+     * setting the error code of the answer.
+     */
+    synchronized Var getVar(FrameCache.Stack stack, int level, String local, PacketStream answer) {
+        if (!update(answer)) {
+            return null;
+        }
+        String function = stack.getFunction(level);
+        Map<Integer, Frame> threadFrames = frames.computeIfAbsent(stack.getThreadId(), id -> new HashMap<>());
+        int height = stack.getHeight(level);
+        Frame frame = threadFrames.get(height);
+        if (frame == null || !frame.function.equals(function)) {
+            if (frame != null) {
+                // The frame returned, and another one was called in its place
+                delete(new ArrayList<>(frame.locals.values()));
+            }
+            frame = new Frame(function);
+            threadFrames.put(height, frame);
+        }
+        Var var = frame.locals.get(local);
+        if (var != null) {
+            return var;
+        }
+
+        System.out.println("Queueing MI command to create variable object for " + local);
+        MICommand cmd = gc.getCommandFactory().createMIVarCreate(String.valueOf(stack.getThreadId()), level, "-", local);
+        int tokenID = JDWP.getNewTokenId();
+        gc.queueCommand(tokenID, cmd);
+
+        MIVarCreateInfo reply = (MIVarCreateInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
+        if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+            // GDB does not know the local, e.g. it was optimized away
+            answer.pkt.errorCode = JDWP.Error.ABSENT_INFORMATION;
+            return null;
+        }
+        var = new Var(reply.getName(), frame, local, typeParser.parse(reply.getType()), reply.getValue());
+        frame.locals.put(local, var);
+        vars.put(var.name, var);
+        return var;
+    }
+
+    /**
+     * Assigns an expression to a local through its variable object. Returns false
+     * after setting the error code of the answer if GDB cannot assign it.
+     */
+    synchronized boolean assign(Var var, String expression, PacketStream answer) {
+        System.out.println("Queueing MI command to set local variable value");
+        MICommand cmd = gc.getCommandFactory().createMIVarAssign(var.name, expression);
+        int tokenID = JDWP.getNewTokenId();
+        gc.queueCommand(tokenID, cmd);
+
+        MIVarAssignInfo reply = (MIVarAssignInfo) gc.getResponse(tokenID, JDWP.QUERY_REQUEST_TIMEOUT);
+        if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+            answer.pkt.errorCode = JDWP.Error.INTERNAL;
+            return false;
+        }
+        var.value = reply.getValue();
+        return true;
+    }
+
+    /**
+     * Updates all variable objects once per stop.
+     */
+    private boolean update(PacketStream answer) {
+        long current = stop.get();
+        if (current == updatedStop) {
+            return true;
+        }
+        if (vars.isEmpty()) {
+            updatedStop = current;
+            return true;
+        }
+        System.out.println("Queueing MI command to update variable objects");
+        MICommand cmd = gc.getCommandFactory().createMIVarUpdate("*");
+        int tokenID = JDWP.getNewTokenId();
+        gc.queueCommand(tokenID, cmd);
+
+        MIVarUpdateInfo reply = (MIVarUpdateInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
+        if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+            answer.pkt.errorCode = JDWP.Error.INTERNAL;
+            return false;
+        }
+        // Only the variable objects which changed are listed
+        List<Var> outOfScope = new ArrayList<>();
+        for (MIVarChange change : reply.getMIVarChanges()) {
+            Var var = vars.get(change.getVarName());
+            if (var == null) {
+                continue;
+            }
+            if (!change.isInScope()) {
+                outOfScope.add(var);
+            } else {
+                if (change.isChanged() && change.getNewType() != null) {
+                    // The dynamic type of the value changed
+                    var.type = typeParser.parse(change.getNewType());
+                }
+                if (change.getValue() != null) {
+                    var.value = change.getValue();
+                }
+            }
+        }
+        delete(outOfScope);
+        updatedStop = current;
+        return true;
+    }
+
+    /**
+     * Deletes variable objects whose frame returned. The -var-delete commands are
+     * queued together and their replies collected afterwards, so the deletions cost
+     * one round trip however many there are.
+     */
+    private void delete(List<Var> dead) {
+        if (dead.isEmpty()) {
+            return;
+        }
+        System.out.println("Queueing MI commands to delete " + dead.size() + " variable objects");
+        int[] tokenIDs = new int[dead.size()];
+        for (int i = 0; i < tokenIDs.length; i++) {
+            Var var = dead.get(i);
+            vars.remove(var.name);
+            var.frame.locals.remove(var.local);
+            MICommand cmd = gc.getCommandFactory().createMIVarDelete(var.name);
+            tokenIDs[i] = JDWP.getNewTokenId();
+            gc.queueCommand(tokenIDs[i], cmd);
+        }
+        for (int tokenID : tokenIDs) {
+            // Only collected so that it is not kept, the variable object is forgotten either way
+            gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
+        }
+    }
+}
@@ -27,9 +27,16 @@ package jdwp;
 
 import com.sun.jdi.connect.spi.Connection;
 import gdb.mi.service.command.AbstractMIControl;
+import gdb.mi.service.command.MIBreakpointRegistry;
+import gdb.mi.service.command.MIThreadRegistry;
+import gdb.mi.service.command.commands.RawCommand;
 import jdwp.jdi.VirtualMachineImpl;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 public class GDBControl extends AbstractMIControl {
     private final Connection myConnection;
@@ -46,6 +53,24 @@ public class GDBControl extends AbstractMIControl {
     InputStream  gdbError = null;
     BufferedReader outputReader = null;
 
+    /** Whether GDB runs the MI commands of nativejdb.py, e.g. -java-frames-with-locals */
+    private boolean javaMICommands = false;
+
+    private final MIBreakpointRegistry breakpoints = new MIBreakpointRegistry();
+    private final MIThreadRegistry threads = new MIThreadRegistry();
+    private final ThreadIdentity threadIdentity = new ThreadIdentity(this);
+    private final FrameCache frameCache = new FrameCache(this);
+    private final FrameVariables frameVariables = new FrameVariables(this);
+    private final NativeSymbols symbols = new NativeSymbols(this);
+
+    /**
+     * Whether threads are stopped and resumed one by one, see ThreadSuspension. Off unless
+     * -Dnative.gdb.non.stop=true, since GDB's replies can then not be cached while other
+     * threads run.
+     */
+    private final boolean nonStop = Boolean.getBoolean("native.gdb.non.stop");
+    private final ThreadSuspension suspension = new ThreadSuspension(this, nonStop);
+
     public GDBControl(Connection myConnection, VirtualMachineImpl vm)  {
         super(); //AbstractMIControl sets up command factory
         this.myConnection = myConnection;
@@ -54,10 +79,9 @@ public class GDBControl extends AbstractMIControl {
         try {
             String exec = System.getProperty("native.exec");
             String src = System.getProperty("native.src");
-            ProcessBuilder builder = new ProcessBuilder("gdb", "--interpreter=mi", exec);
-            builder.redirectErrorStream(true); // so we can ignore the error stream
+            GDBStartup startup = new GDBStartup(exec);
 
-            Process process = builder.start();
+            Process process = startup.start();
             gdbInput = process.getOutputStream();
             gdbOutput = process.getInputStream();
             gdbError = process.getErrorStream();
@@ -67,12 +91,36 @@ public class GDBControl extends AbstractMIControl {
             gdbInput.write(com, 0, com.length);
             gdbInput.flush();
             System.out.println(getGDBOutput());
+            // GDB prompts once the executable and its symbols are loaded
+            startup.endPhase("load");
 
             com = "-gdb-set mi-async on\n".getBytes();
             gdbInput.write(com, 0, com.length);
             gdbInput.flush();
             System.out.println(getGDBOutput());
 
+            if (nonStop) {
+                // Must be set before the inferior starts
+                com = "-gdb-set non-stop on\n".getBytes();
+                gdbInput.write(com, 0, com.length);
+                gdbInput.flush();
+                System.out.println(getGDBOutput());
+            }
+            startup.endPhase("setup");
+
+            if (!"false".equals(System.getProperty("native.gdb.python"))) {
+                javaMICommands = loadJavaMICommands();
+                startup.endPhase("python");
+            }
+            System.out.println(startup.getReport());
+
+            if (Boolean.getBoolean("native.static.gdb")) {
+                startStaticGDB(exec, src);
+            }
+            if (Boolean.getBoolean("native.gdb.bulk.channel")) {
+                startBulkChannel();
+            }
+
 //            com = "start&\n".getBytes();
 //            gdbInput.write(com, 0, com.length);
 //            gdbInput.flush();
@@ -90,6 +138,168 @@ public class GDBControl extends AbstractMIControl {
     }
 
 
+    /**
+     * Starts a second GDB on the same executable, without inferior, and routes the
+     * commands which only read debug information to it.
+     */
+    private void startStaticGDB(String exec, String src) throws IOException {
+        // Loads the index saved by the main GDB, if any
+        Process process = new GDBStartup(exec).start();
+
+        AbstractMIControl staticControl = new AbstractMIControl() {};
+        staticControl.startCommandProcessing(process.getInputStream(), process.getOutputStream(), null);
+        staticControl.queueCommand(JDWP.getNewTokenId(), new RawCommand("-environment-directory " + src));
+        setStaticControl(staticControl);
+    }
+
+    /**
+     * Sources the bundled nativejdb.py into GDB, which registers MI commands that
+     * answer in one round trip what takes several plain MI commands. Returns false
+     * if GDB lacks Python, or its Python lacks gdb.MICommand; JDWP commands then
+     * fall back to plain MI.
+     */
+    private boolean loadJavaMICommands() throws IOException {
+        Path script = Files.createTempFile("nativejdb", ".py");
+        script.toFile().deleteOnExit();
+        try (InputStream in = GDBControl.class.getResourceAsStream("/gdb/nativejdb.py")) {
+            if (in == null) {
+                return false;
+            }
+            Files.copy(in, script, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        String source = ("source " + script).replace("\\", "\\\\").replace("\"", "\\\"");
+        byte[] com = ("0-interpreter-exec console \"" + source + "\"\n").getBytes();
+        gdbInput.write(com, 0, com.length);
+        gdbInput.flush();
+        System.out.println(getGDBResult("0"));
+
+        com = "0-info-gdb-mi-command java-frames-with-locals\n".getBytes();
+        gdbInput.write(com, 0, com.length);
+        gdbInput.flush();
+        String result = getGDBResult("0");
+        System.out.println(result);
+        return result.contains("exists=\"true\"");
+    }
+
+    /**
+     * Returns whether the MI commands of nativejdb.py, such as
+     * {@link gdb.mi.service.command.commands.MIJavaFramesWithLocals}, can be used.
+     */
+    public boolean hasJavaMICommands() {
+        return javaMICommands;
+    }
+
+    /**
+     * Returns the suspend counts of the threads.
+     */
+    public ThreadSuspension getSuspension() {
+        return suspension;
+    }
+
+    /**
+     * Returns the breakpoints of GDB, kept up to date by the event processor.
+     */
+    public MIBreakpointRegistry getBreakpoints() {
+        return breakpoints;
+    }
+
+    /**
+     * Returns the threads of the inferior, kept up to date by the event processor.
+     */
+    public MIThreadRegistry getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the map between GDB threads, LWPs and the SA thread mirrors.
+     */
+    public ThreadIdentity getThreadIdentity() {
+        return threadIdentity;
+    }
+
+    /**
+     * Returns the stacks of the suspended threads, listed once per stop.
+     */
+    public FrameCache getFrameCache() {
+        return frameCache;
+    }
+
+    /**
+     * Returns the locals of the suspended frames, updated once per stop.
+     */
+    public FrameVariables getFrameVariables() {
+        return frameVariables;
+    }
+
+    /**
+     * Returns the source files and functions of the image, listed on first use.
+     */
+    public NativeSymbols getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Opens a second MI channel on this GDB with new-ui and routes the large read-only
+     * queries to it, so that they do not hold up run control on the main channel.
+     * Java cannot allocate a pseudo terminal, so socat provides one and relays it to
+     * its standard streams. Without socat all commands stay on the main channel.
+     */
+    private void startBulkChannel() throws IOException {
+        if (!isOnPath("socat")) {
+            System.out.println("socat is not installed, all MI commands use a single channel");
+            return;
+        }
+        Path tty = Files.createTempDirectory("nativejdb").resolve("mi-bulk");
+        tty.getParent().toFile().deleteOnExit();
+        Process relay;
+        try {
+            relay = new ProcessBuilder("socat", "PTY,link=" + tty + ",raw,echo=0", "STDIO").start();
+        } catch (IOException e) {
+            System.out.println("Cannot start socat, all MI commands use a single channel: " + e);
+            return;
+        }
+        try {
+            for (int i = 0; i < 100 && !Files.exists(tty); i++) {
+                Thread.sleep(20);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!Files.exists(tty)) {
+            System.out.println("Cannot open a pty for the second MI channel, all MI commands use a single channel");
+            relay.destroy();
+            return;
+        }
+
+        byte[] com = ("0-interpreter-exec console \"new-ui mi " + tty + "\"\n").getBytes();
+        gdbInput.write(com, 0, com.length);
+        gdbInput.flush();
+        String result = getGDBResult("0");
+        System.out.println(result);
+        if (!result.contains("0^done")) {
+            relay.destroy();
+            return;
+        }
+
+        AbstractMIControl bulkControl = new AbstractMIControl() {};
+        bulkControl.startCommandProcessing(relay.getInputStream(), relay.getOutputStream(), null);
+        setBulkControl(bulkControl);
+    }
+
+    private static boolean isOnPath(String program) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (!dir.isEmpty() && Files.isExecutable(Paths.get(dir, program))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     void flush() {
         try {
             int no = gdbOutput.available();
@@ -122,6 +332,21 @@ public class GDBControl extends AbstractMIControl {
         return result;
     }
 
+    /**
+     * Reads GDB's output up to the result record of the command sent with the given token.
+     */
+    private String getGDBResult(String token) throws IOException {
+        StringBuilder result = new StringBuilder();
+        String line;
+        while ((line = outputReader.readLine()) != null) {
+            result.append(line).append("\n");
+            if (line.startsWith(token + "^")) {
+                break;
+            }
+        }
+        return result.toString();
+    }
+
     public void sendToTarget(Packet pkt) {
         try {
             myConnection.writePacket(pkt.toByteArray());
@@ -0,0 +1,180 @@
+package jdwp;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts GDB on the native executable as fast as possible.
+ *
+ * Reading the DWARF of a large native image is usually the longest part of a session.
+ * GDB is therefore started with its index cache on, so that it writes the index of the
+ * image named by its ELF build-id on the first run and loads it instead of scanning the
+ * DWARF on the next runs, as long as the image did not change.
+ *
+ * Properties:
+ * <ul>
+ * <li>native.gdb.index.cache: directory of the cached indexes, ~/.cache/nativejdb/gdb-index
+ * by default; "none" disables the cache</li>
+ * <li>native.gdb.worker.threads: number of DWARF reader threads, GDB's default if not set.
+ * Needs GDB 12 or later.</li>
+ * </ul>
+ */
+public class GDBStartup {
+    private static final int NT_GNU_BUILD_ID = 3;
+    private static final int SHT_NOTE = 7;
+
+    private final String exec;
+    private final Path cacheDir;
+    private final String buildId;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long phaseStart;
+
+    public GDBStartup(String exec) {
+        this.exec = exec;
+        String dir = System.getProperty("native.gdb.index.cache",
+                Paths.get(System.getProperty("user.home"), ".cache", "nativejdb", "gdb-index").toString());
+        String id = null;
+        if (!"none".equals(dir)) {
+            try {
+                id = readBuildId(Paths.get(exec));
+            } catch (IOException e) {
+                System.out.println("Cannot read build-id of " + exec + ": " + e);
+            }
+        }
+        // GDB names the cached indexes by build-id and caches nothing without one
+        this.cacheDir = id != null ? Paths.get(dir) : null;
+        this.buildId = id;
+        phaseStart = System.nanoTime();
+    }
+
+    /**
+     * Starts GDB with the index cache and, if asked for, the DWARF reader threads
+     * configured before the executable is loaded.
+     */
+    public Process start() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("gdb");
+        String threads = System.getProperty("native.gdb.worker.threads");
+        if (threads != null) {
+            command.add("-iex");
+            command.add("maint set worker-threads " + threads);
+        }
+        if (cacheDir != null) {
+            Files.createDirectories(cacheDir);
+            command.add("-iex");
+            command.add("set index-cache directory " + cacheDir);
+            command.add("-iex");
+            command.add("set index-cache on");
+        }
+        command.add("--interpreter=mi");
+        command.add(exec);
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true); // so we can ignore the error stream
+        Process process = builder.start();
+        endPhase("spawn");
+        return process;
+    }
+
+    /**
+     * Records the time spent since the previous phase ended.
+     */
+    public void endPhase(String name) {
+        long now = System.nanoTime();
+        phases.put(name, (now - phaseStart) / 1000000);
+        phaseStart = now;
+    }
+
+    /**
+     * Returns the duration in milliseconds of each phase, in order.
+     */
+    public Map<String, Long> getPhaseTimings() {
+        return phases;
+    }
+
+    public String getReport() {
+        StringBuilder report = new StringBuilder("GDB startup");
+        long total = 0;
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            report.append(' ').append(phase.getKey()).append('=').append(phase.getValue()).append("ms");
+            total += phase.getValue();
+        }
+        report.append(" total=").append(total).append("ms");
+        if (buildId != null) {
+            report.append(" build-id=").append(buildId);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Returns the hex GNU build-id of an ELF file, or null if it has none.
+     */
+    static String readBuildId(Path elf) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(elf.toFile(), "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(64);
+            channel.read(header, 0);
+            header.flip();
+            if (header.limit() < 52 || header.getInt(0) != 0x7f454c46) { // \177ELF
+                return null;
+            }
+            boolean is64 = header.get(4) == 2;
+            header.order(header.get(5) == 2 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+            long shoff = is64 ? header.getLong(0x28) : header.getInt(0x20) & 0xffffffffL;
+            int shentsize = header.getShort(is64 ? 0x3a : 0x2e) & 0xffff;
+            int shnum = header.getShort(is64 ? 0x3c : 0x30) & 0xffff;
+
+            ByteBuffer sections = ByteBuffer.allocate(shentsize * shnum).order(header.order());
+            channel.read(sections, shoff);
+            for (int i = 0; i < shnum; i++) {
+                int base = i * shentsize;
+                if (sections.getInt(base + 4) != SHT_NOTE) {
+                    continue;
+                }
+                long offset = is64 ? sections.getLong(base + 0x18) : sections.getInt(base + 0x10) & 0xffffffffL;
+                long size = is64 ? sections.getLong(base + 0x20) : sections.getInt(base + 0x14) & 0xffffffffL;
+                ByteBuffer notes = ByteBuffer.allocate((int) size).order(header.order());
+                channel.read(notes, offset);
+                String id = findBuildId(notes);
+                if (id != null) {
+                    return id;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String findBuildId(ByteBuffer notes) {
+        int pos = 0;
+        while (pos + 12 <= notes.capacity()) {
+            int namesz = notes.getInt(pos);
+            int descsz = notes.getInt(pos + 4);
+            int type = notes.getInt(pos + 8);
+            int name = pos + 12;
+            int desc = name + ((namesz + 3) & ~3);
+            if (namesz < 0 || descsz < 0 || desc + descsz > notes.capacity()) {
+                return null;
+            }
+            if (type == NT_GNU_BUILD_ID && namesz == 4 && notes.get(name) == 'G' && notes.get(name + 1) == 'N'
+                    && notes.get(name + 2) == 'U') {
+                StringBuilder hex = new StringBuilder();
+                for (int i = 0; i < descsz; i++) {
+                    hex.append(String.format("%02x", notes.get(desc + i) & 0xff));
+                }
+                return hex.toString();
+            }
+            pos = desc + ((descsz + 3) & ~3);
+        }
+        return null;
+    }
+}
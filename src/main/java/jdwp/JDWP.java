@@ -29,6 +29,7 @@ import gdb.mi.service.command.output.*;
 import jdwp.jdi.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Java(tm) Debug Wire Protocol
@@ -40,6 +41,16 @@ public class JDWP {
      */
     public static final int DEF_REQUEST_TIMEOUT = 300000;
 
+    /**
+     * Deadline for commands which only inspect a stopped target (threads, frames, variables).
+     */
+    public static final int QUERY_REQUEST_TIMEOUT = 15000;
+
+    /**
+     * Deadline for commands which change the state of the target (run control, breakpoints).
+     */
+    public static final int RUN_CONTROL_REQUEST_TIMEOUT = 60000;
+
     /**
      * Global maps to store breakpoint information for both async (by bkpt#) and sync (by requestID) processing
      */
@@ -49,7 +60,8 @@ public class JDWP {
 
     static Map<Long, MIInfo> stepByThreadID = new HashMap<>(); //for async events processing
 
-    static Map<Integer, MIFrame> framesById = new HashMap<>();
+    static Map<Integer, JDWPEventRequest.ThreadEventRequest> threadEventsByRequestID = new ConcurrentHashMap<>(); //for async events processing
+
     /**
      * A global counter for all command, the token will be use to identify uniquely a command.
      * Unless the value wraps around which is unlikely.
@@ -223,6 +235,27 @@ public class JDWP {
         int INVOKE_NONVIRTUAL = 0x02;
     }
 
+    /**
+     * Returns the time budget, in milliseconds, shared by all the MI commands issued while
+     * serving the given JDWP command.
+     */
+    static int getRequestTimeout(int cmdSet, int cmd) {
+        switch (cmdSet) {
+            case JDWPVirtualMachine.VirtualMachine.COMMAND_SET:
+                if (cmd == JDWPVirtualMachine.VirtualMachine.AllThreads.COMMAND) {
+                    return QUERY_REQUEST_TIMEOUT;
+                }
+                return RUN_CONTROL_REQUEST_TIMEOUT;
+            case JDWPThreadReference.ThreadReference.COMMAND_SET:
+            case JDWPStackFrame.StackFrame.COMMAND_SET:
+                return QUERY_REQUEST_TIMEOUT;
+            case JDWPEventRequest.EventRequest.COMMAND_SET:
+                return RUN_CONTROL_REQUEST_TIMEOUT;
+            default:
+                return DEF_REQUEST_TIMEOUT;
+        }
+    }
+
     static void notImplemented(PacketStream answer) {
         answer.pkt.errorCode = Error.NOT_IMPLEMENTED;
     }
@@ -5,6 +5,7 @@ import gdb.mi.service.command.Listener;
 import gdb.mi.service.command.MIRunControlEventProcessor;
 import gdb.mi.service.command.commands.MICommand;
 import gdb.mi.service.command.output.MIBreakInsertInfo;
+import gdb.mi.service.command.output.MIBreakpoint;
 import gdb.mi.service.command.output.MIInfo;
 import gdb.mi.service.command.output.MIResultRecord;
 import jdwp.jdi.LocationImpl;
@@ -12,12 +13,27 @@ import jdwp.jdi.ReferenceTypeImpl;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class JDWPEventRequest {
 
     public static List<MIEvent> asyncEvents = new ArrayList<>();
 
+    /**
+     * A THREAD_START or THREAD_DEATH request, generated from GDB's thread notifications.
+     */
+    static final class ThreadEventRequest {
+        final byte eventKind;
+        final byte suspendPolicy;
+        /** Thread of a ThreadOnly modifier, 0 for any thread */
+        final long threadId;
+
+        ThreadEventRequest(byte eventKind, byte suspendPolicy, long threadId) {
+            this.eventKind = eventKind;
+            this.suspendPolicy = suspendPolicy;
+            this.threadId = threadId;
+        }
+    }
+
     static class EventRequest {
         static final int COMMAND_SET = 15;
         private EventRequest() {}  // hide constructor
@@ -33,9 +49,9 @@ public class JDWPEventRequest {
         static class Set implements Command  {
             static final int COMMAND = 1;
 
-            private boolean differentBreakLine(MIBreakInsertInfo reply) {
-                int line = reply.getMIBreakpoint().getLine();
-                String originalLocation = reply.getMIBreakpoint().getOriginalLocation();
+            private boolean differentBreakLine(MIBreakpoint breakpoint) {
+                int line = breakpoint.getLine();
+                String originalLocation = breakpoint.getOriginalLocation();
                 String originalLineString = originalLocation.substring(originalLocation.indexOf(":") + 1);
                 int originalLine = originalLineString != "" ? Integer.parseInt(originalLineString) : line;
                 return line != originalLine;
@@ -57,6 +73,19 @@ public class JDWPEventRequest {
                                 LocationImpl loc = new LocationImpl(refType.methodById(methodId), index);
                                 String location = refType.baseSourceName() + ":" + loc.lineNumber();
 
+                                String method = loc.method().name();
+                                if (!method.startsWith("<") && !gc.getSymbols().isCompiled(refType.baseSourceName(), refType.name() + "::" + method)) {
+                                    // Not compiled into the image, GDB would break at another line
+                                    answer.pkt.errorCode = JDWP.Error.INVALID_LOCATION;
+                                    return;
+                                }
+
+                                if (gc.getBreakpoints().isInvalidLocation(location)) {
+                                    // Found to be an invalid location by an earlier request
+                                    answer.pkt.errorCode = JDWP.Error.INVALID_LOCATION;
+                                    return;
+                                }
+
                                 System.out.println("Queueing MI command to insert breakpoint at "+location);
                                 MICommand cmd = gc.getCommandFactory().createMIBreakInsert(false, false, "", 0, location, "0", false, false);
                                 int tokenID = JDWP.getNewTokenId();
@@ -68,12 +97,15 @@ public class JDWPEventRequest {
                                     return;
                                 }
 
-                                if (differentBreakLine(reply)) { // This is an invalid location in the source to set a breakpoint
+                                if (differentBreakLine(reply.getMIBreakpoint())) { // This is an invalid location in the source to set a breakpoint
                                     answer.pkt.errorCode = JDWP.Error.INVALID_LOCATION;
 
+                                    gc.getBreakpoints().addInvalidLocation(location);
+
                                     // remove the breakpoint in GDB
-                                    System.out.println("Queueing MI command to disable breakpoint at "+location);
-                                    cmd = gc.getCommandFactory().createMIBreakDisable(reply.getMIBreakpoint().getNumber());
+                                    System.out.println("Queueing MI command to delete breakpoint at "+location);
+                                    String[] array = {reply.getMIBreakpoint().getNumber()};
+                                    cmd = gc.getCommandFactory().createMIBreakDelete(array);
                                     tokenID = JDWP.getNewTokenId();
                                     gc.queueCommand(tokenID, cmd);
 
@@ -83,7 +115,6 @@ public class JDWPEventRequest {
                                         return;
                                     }
 
-
                                     return;
                                 }
 
@@ -95,6 +126,7 @@ public class JDWPEventRequest {
                                 JDWP.bkptsByRequestID.put(reply.getMIInfoRequestID(), reply);
                                 JDWP.bkptsByBreakpointNumber.put(bkptNumber, reply);
                                 JDWP.bkptsLocation.put(bkptNumber, loc);
+                                gc.getBreakpoints().update(reply.getMIBreakpoint());
                                 answer.writeInt(reply.getMIInfoRequestID());
                             }
                         }
@@ -181,6 +213,21 @@ public class JDWPEventRequest {
                     }
                     answer.writeInt(0);
 
+                } else if (eventKind == JDWP.EventKind.THREAD_START || eventKind == JDWP.EventKind.THREAD_DEATH) {
+                    byte suspendPolicy = command.readByte();
+                    int modifiersCount = command.readInt();
+                    long threadId = 0;
+                    for (int i = 0; i < modifiersCount; i++) {
+                        byte modKind = command.readByte();
+                        if (modKind == 1 || modKind == 2) { // Count, Conditional
+                            command.readInt();
+                        } else if (modKind == 3) { // ThreadOnly
+                            threadId = command.readObjectRef();
+                        }
+                    }
+                    JDWP.threadEventsByRequestID.put(command.pkt.id,
+                            new ThreadEventRequest(eventKind, suspendPolicy, threadId));
+                    answer.writeInt(command.pkt.id);
                 } else if (eventKind == JDWP.EventKind.FIELD_ACCESS || eventKind == JDWP.EventKind.FIELD_MODIFICATION) {
                     byte suspendPolicy = command.readByte();
                     int modifiersCount = command.readInt();
@@ -210,9 +257,15 @@ public class JDWPEventRequest {
                     try {
                         int requestID = command.readInt();
                         MIBreakInsertInfo bkptInfo = JDWP.bkptsByRequestID.get(requestID);
+                        String number = bkptInfo.getMIBreakpoint().getNumber();
+                        if (gc.getBreakpoints().get(number) == null) {
+                            // Deleted in GDB already
+                            JDWP.bkptsByRequestID.remove(requestID);
+                            return;
+                        }
 
                         System.out.println("Queueing MI command to delete breakpoint");
-                        String[] array = {bkptInfo.getMIBreakpoint().getNumber()};
+                        String[] array = {number};
                         MICommand cmd = gc.getCommandFactory().createMIBreakDelete(array);
                         int tokenID = JDWP.getNewTokenId();
                         gc.queueCommand(tokenID, cmd);
@@ -223,9 +276,12 @@ public class JDWPEventRequest {
                             return;
                         }
                         JDWP.bkptsByRequestID.remove(requestID);
+                        gc.getBreakpoints().remove(number);
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
+                } else if (eventKind == JDWP.EventKind.THREAD_START || eventKind == JDWP.EventKind.THREAD_DEATH) {
+                    JDWP.threadEventsByRequestID.remove(command.readInt());
                 }  else {
                     answer.writeInt(0); // to allow jdwp.jdi GDBControl to initialize
                 }
@@ -243,11 +299,18 @@ public class JDWPEventRequest {
                 byte eventKind = command.readByte();
                 if (eventKind == JDWP.EventKind.BREAKPOINT) {
                     try {
-                        String[] array = new String[JDWP.bkptsByBreakpointNumber.size()];
-                        int i = 0;
-                        for (Map.Entry<Integer, MIBreakInsertInfo> entry : JDWP.bkptsByBreakpointNumber.entrySet()) {
-                            array[i] = String.valueOf(entry.getKey());
-                            i++;
+                        // Without numbers, -break-delete would delete the breakpoints of GDB itself too
+                        List<String> numbers = new ArrayList<>();
+                        for (Integer number : JDWP.bkptsByBreakpointNumber.keySet()) {
+                            if (gc.getBreakpoints().get(String.valueOf(number)) != null) {
+                                numbers.add(String.valueOf(number));
+                            }
+                        }
+                        String[] array = numbers.toArray(new String[0]);
+                        if (array.length == 0) {
+                            JDWP.bkptsByBreakpointNumber.clear();
+                            JDWP.bkptsByRequestID.clear();
+                            return;
                         }
                         MICommand cmd = gc.getCommandFactory().createMIBreakDelete(array);
                         int tokenID = JDWP.getNewTokenId();
@@ -258,6 +321,9 @@ public class JDWPEventRequest {
                             answer.pkt.errorCode = JDWP.Error.INTERNAL;
                             return;
                         }
+                        for (String number : array) {
+                            gc.getBreakpoints().remove(number);
+                        }
                         JDWP.bkptsByBreakpointNumber.clear();
                         JDWP.bkptsByRequestID.clear();
                     } catch (Exception e) {
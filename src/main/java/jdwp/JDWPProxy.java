@@ -105,11 +105,18 @@ public class JDWPProxy {
                 int cmd = p.cmd;
                 PacketStream packetStream = new PacketStream(gdbControl, p.id, cmdSet, cmd);
                 Command command = COMMANDS.get(cmdSet).get(cmd);
+                gdbControl.beginRequest(JDWP.getRequestTimeout(cmdSet, cmd));
                 try {
                     command.reply(gdbControl, packetStream, new PacketStream(gdbControl, p));
+                    if (gdbControl.endRequest()) {
+                        // GDB did not answer in time, the reply is incomplete
+                        packetStream.pkt.errorCode = JDWP.Error.INTERRUPT;
+                        packetStream.dataStream.reset();
+                    }
                 } catch (VMDisconnectedException vde) {
                     throw  vde;
                 } catch (Exception e) {
+                    gdbControl.endRequest();
                     e.printStackTrace();
                     packetStream.pkt.errorCode = JDWP.Error.INTERNAL;
                     packetStream.dataStream.reset();
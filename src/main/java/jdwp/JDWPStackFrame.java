@@ -1,17 +1,51 @@
 package jdwp;
 
+import com.sun.jdi.AbsentInformationException;
 import com.sun.jdi.IncompatibleThreadStateException;
+import gdb.gdb.GDBTypeParser;
 import gdb.mi.service.command.commands.MICommand;
 import gdb.mi.service.command.output.*;
+import jdwp.jdi.LocalVariableImpl;
+import jdwp.jdi.LocationImpl;
 import jdwp.jdi.StackFrameImpl;
 import jdwp.jdi.ThreadReferenceImpl;
 import jdwp.jdi.ValueImpl;
 
+import java.util.List;
+
 public class JDWPStackFrame {
     static class StackFrame {
         static final int COMMAND_SET = 16;
         private StackFrame() {}  // hide constructor
 
+        /**
+         * Returns the local which is in the given slot at the location of a frame. The
+         * locations of native frames are only known to the line, so a local of the slot
+         * whose scope starts later on the same line is taken if none is visible yet.
+         */
+        static LocalVariableImpl findVariable(LocationImpl location, int slot) {
+            List<LocalVariableImpl> variables;
+            try {
+                variables = location.method().variables();
+            } catch (AbsentInformationException e) {
+                return null;
+            }
+            LocalVariableImpl found = null;
+            for (LocalVariableImpl variable : variables) {
+                if (variable.slot() != slot) {
+                    continue;
+                }
+                long codeIndex = location.codeIndex();
+                if (codeIndex >= variable.getStart() && codeIndex <= variable.getStart() + variable.getLength()) {
+                    return variable;
+                }
+                if (found == null) {
+                    found = variable;
+                }
+            }
+            return found;
+        }
+
         /**
          * Returns the value of one or more local variables in a
          * given frame. Each variable must be visible at the frame's code index.
@@ -25,64 +59,59 @@ public class JDWPStackFrame {
             static final int COMMAND = 1;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                /* This will be a combination of a few different GDB commands:
-                1. -stack-list-variables [ --no-frame-filters ] [ --skip-unavailable ] print-values
-                    Display the names of local variables and function arguments for the selected frame.
-                2. -stack-list-locals [ --no-frame-filters ] [ --skip-unavailable ] print-values  (Maybe contained in 1.'s output already)
-                    Display the local variable names for the selected frame.
-                3. -symbol-info-variables [--include-nondebug] (Only gives us global field names - no values. Maybe contained in 1.'s output already)
-                        [--type type_regexp]
-                        [--name name_regexp]
-                        [--max-results limit]
-                    Return a list containing the names and types for all global variables taken from the debug information. The variables are grouped by source file, and shown with the line number on which each variable is defined.
-                */
+                /* Slots are mapped to locals through the variable table of the method, and
+                   the values come from variable objects updated once per stop, see FrameVariables.
+                   They are decoded as the tags asked for, see ValueDecoder. */
                 long threadId = command.readObjectRef();
                 int frameId = (int) command.readFrameRef();
                 int slots = command.readInt();
+                FrameCache cache = gc.getFrameCache();
+                FrameCache.Stack stack = cache.getStack(threadId);
+                if (!cache.listLevel(stack, frameId, answer)) {
+                    return;
+                }
+                LocationImpl location = stack.getLocation(frameId);
+                if (location == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_FRAMEID;
+                    return;
+                }
+                // With the MI commands of nativejdb.py the locals came with the frames
+                MIArg[] locals = gc.hasJavaMICommands() ? stack.getLocals(frameId) : null;
                 answer.writeInt(slots);
                 for (int i = 0; i < slots; i++) {
                     int slot = command.readInt();
                     byte sigbyte = command.readByte();
-
-                    System.out.println("Queueing MI command to list local variables and function arguments");
-                    MICommand cmd = gc.getCommandFactory().createMIStackListVariables(true, String.valueOf(threadId), String.valueOf(frameId));
-                    int tokenID = JDWP.getNewTokenId();
-                    gc.queueCommand(tokenID, cmd);
-
-                    MIStackListVariablesInfo replyloc = (MIStackListVariablesInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                    if (replyloc.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
-                        answer.pkt.errorCode = JDWP.Error.INTERNAL;
-                    }
-
-                    /*System.out.println("Queueing MI command to list global variables (only names)");
-                    cmd = gc.getCommandFactory().createMiSymbolInfoVariables();
-                    tokenID = JDWP.getNewTokenId();
-                    gc.queueCommand(tokenID, cmd);
-
-                    MiSymbolInfoVariablesInfo replyloc1 = (MiSymbolInfoVariablesInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                    if (replyloc1.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
-                        answer.pkt.errorCode = JDWP.Error.INTERNAL;
-                    }*/
-
-                    MIArg[] vals = replyloc.getVariables();
-                    for (int j = 0; j < vals.length; j++) {
-                        String name = vals[j].getName();
-                        String value = vals[j].getValue();
-                        answer.writeString(value);
+                    LocalVariableImpl variable = findVariable(location, slot);
+                    if (variable == null) {
+                        answer.pkt.errorCode = JDWP.Error.INVALID_SLOT;
+                        return;
                     }
-
-                   /* MIFrame frame = JDWP.framesById.get(frameId);
-                    MiSymbolInfoVariablesInfo.SymbolVariableInfo[] files = replyloc1.getSymbolVariables();
-                    for ( MiSymbolInfoVariablesInfo.SymbolVariableInfo file: files) {
-                        if (file.getFilename() == frame.getFile()) {
-                            MiSymbolInfoVariablesInfo.Symbols[] vals1 = file.getSymbols();
-                            for (MiSymbolInfoVariablesInfo.Symbols val: vals1) {
-                                String name = val.getName();
-                                //getValue of this global file field via GDB cmd
-                                System.out.println(name);
+                    String value = null;
+                    GDBTypeParser.GDBType type = null;
+                    if (locals != null) {
+                        for (MIArg local : locals) {
+                            if (local.getName().equals(variable.name())) {
+                                value = local.getValue();
+                                break;
                             }
                         }
-                    }*/
+                        if (value == null) {
+                            answer.pkt.errorCode = JDWP.Error.ABSENT_INFORMATION;
+                            return;
+                        }
+                    } else {
+                        FrameVariables.Var var = gc.getFrameVariables().getVar(stack, frameId, variable.name(), answer);
+                        if (var == null) {
+                            return;
+                        }
+                        value = var.getValue();
+                        type = var.getType();
+                    }
+                    if (!ValueDecoder.writeValue(answer, sigbyte, variable.signature(), type, value)) {
+                        System.out.println("Cannot read " + variable.name() + " = " + value + " as " + (char) sigbyte);
+                        answer.pkt.errorCode = JDWP.Error.INTERNAL;
+                        return;
+                    }
                 }
 
                 /*ThreadReferenceImpl thread = command.readThreadReference();
@@ -127,42 +156,49 @@ public class JDWPStackFrame {
             static final int COMMAND = 2;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
+                // Slots are mapped to locals as by GetValues, GDB only knows the locals by name
                 long threadId = command.readObjectRef();
-                long frameId = command.readFrameRef();
+                int frameId = (int) command.readFrameRef();
                 int slots = command.readInt();
+                FrameCache cache = gc.getFrameCache();
+                FrameCache.Stack stack = cache.getStack(threadId);
+                if (!cache.listLevel(stack, frameId, answer)) {
+                    return;
+                }
+                LocationImpl location = stack.getLocation(frameId);
+                if (location == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_FRAMEID;
+                    return;
+                }
                 for (int i = 0; i < slots; i++) {
-                    int slotId = command.readInt();
+                    int slot = command.readInt();
                     String value = command.readString();
-
-                    System.out.println("Queueing MI command to select thread:" + threadId);
-                    MICommand cmd = gc.getCommandFactory().createMISelectThread((int) threadId);
-                    int tokenID = JDWP.getNewTokenId();
-                    gc.queueCommand(tokenID, cmd);
-
-                    MIInfo reply = gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                    if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
-                        answer.pkt.errorCode = JDWP.Error.INTERNAL;
+                    LocalVariableImpl variable = findVariable(location, slot);
+                    if (variable == null) {
+                        answer.pkt.errorCode = JDWP.Error.INVALID_SLOT;
                         return;
                     }
 
-                    System.out.println("Queueing MI command to select frame");
-                    cmd = gc.getCommandFactory().createMIStackSelectFrame((int) frameId);
-                    tokenID = JDWP.getNewTokenId();
-                    gc.queueCommand(tokenID, cmd);
+                    if (gc.hasJavaMICommands()) {
+                        System.out.println("Queueing MI command to set local variable value");
+                        MICommand cmd = gc.getCommandFactory().createMIJavaAssignLocal(String.valueOf(threadId), frameId, variable.name(), value);
+                        int tokenID = JDWP.getNewTokenId();
+                        gc.queueCommand(tokenID, cmd);
 
-                    reply = gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                    if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
-                        answer.pkt.errorCode = JDWP.Error.INTERNAL;
+                        MIInfo reply = gc.getResponse(tokenID, JDWP.QUERY_REQUEST_TIMEOUT);
+                        if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+                            answer.pkt.errorCode = JDWP.Error.INTERNAL;
+                            return;
+                        }
+                        // The locals listed with the frames are stale now
+                        cache.invalidate(String.valueOf(threadId));
+                        stack = cache.getStack(threadId);
+                        continue;
                     }
 
-                    System.out.println("Queueing MI command to set local variable value");
-                    cmd = gc.getCommandFactory().createMIVarAssign("", value);
-                    tokenID = JDWP.getNewTokenId();
-                    gc.queueCommand(tokenID, cmd);
-
-                    MIStackListVariablesInfo replyloc = (MIStackListVariablesInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                    if (replyloc.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
-                        answer.pkt.errorCode = JDWP.Error.INTERNAL;
+                    FrameVariables.Var var = gc.getFrameVariables().getVar(stack, frameId, variable.name(), answer);
+                    if (var == null || !gc.getFrameVariables().assign(var, value, answer)) {
+                        return;
                     }
                 }
             }
@@ -177,9 +213,30 @@ public class JDWPStackFrame {
             static final int COMMAND = 3;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                ThreadReferenceImpl thread = command.readThreadReference();
+                long threadId = command.readObjectRef();
+                long frameId = command.readFrameRef();
+                FrameCache cache = gc.getFrameCache();
+                FrameCache.Stack stack = cache.getStack(threadId);
+                if (!cache.listLevel(stack, frameId, answer)) {
+                    return;
+                }
+                LocationImpl location = stack.getLocation(frameId);
+                if (location == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_FRAMEID;
+                    return;
+                }
+                if (location.method().isStatic() || location.method().isNative()) {
+                    // No need to look at the thread at all
+                    answer.writeTaggedObjectReference(null);
+                    return;
+                }
+                ThreadReferenceImpl thread = gc.getThreadIdentity().getJavaThread(threadId);
+                if (thread == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_THREAD;
+                    return;
+                }
                 try {
-                    StackFrameImpl frame = thread.frame((int) command.readFrameRef());
+                    StackFrameImpl frame = thread.frame((int) frameId);
                     answer.writeTaggedObjectReference(frame.thisObject()); //HERE
                 } catch (IncompatibleThreadStateException e) {
                     e.printStackTrace();
@@ -1,12 +1,12 @@
 package jdwp;
 
 import com.sun.jdi.IncompatibleThreadStateException;
+import gdb.mi.service.command.MIThreadRegistry;
 import gdb.mi.service.command.commands.MICommand;
 import gdb.mi.service.command.output.*;
 import jdwp.jdi.*;
 
 import java.util.List;
-import java.util.ArrayList;
 
 public class JDWPThreadReference {
 
@@ -21,7 +21,18 @@ public class JDWPThreadReference {
             static final int COMMAND = 1;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                answer.writeString(command.readThreadReference().name());
+                long threadId = command.readObjectRef();
+                MIThreadRegistry.Entry thread = gc.getThreadIdentity().getDetails(threadId);
+                if (thread != null && thread.getName() != null) {
+                    answer.writeString(thread.getName());
+                    return;
+                }
+                ThreadReferenceImpl javaThread = gc.getThreadIdentity().getJavaThread(threadId);
+                if (javaThread == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_THREAD;
+                    return;
+                }
+                answer.writeString(javaThread.name());
             }
         }
 
@@ -53,7 +64,13 @@ public class JDWPThreadReference {
             static final int COMMAND = 2;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                JDWP.notImplemented(answer);
+                long threadId = command.readObjectRef();
+
+                System.out.println("Suspending thread:" + threadId);
+                MIInfo reply = gc.getSuspension().suspendThread(threadId);
+                if (reply != null && reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_THREAD;
+                }
             }
         }
 
@@ -69,7 +86,13 @@ public class JDWPThreadReference {
             static final int COMMAND = 3;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                JDWP.notImplemented(answer);
+                long threadId = command.readObjectRef();
+
+                System.out.println("Resuming thread:" + threadId);
+                MIInfo reply = gc.getSuspension().resumeThread(threadId);
+                if (reply != null && reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_THREAD;
+                }
             }
         }
 
@@ -83,9 +106,20 @@ public class JDWPThreadReference {
             static final int COMMAND = 4;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                ThreadReferenceImpl thread = command.readThreadReference();
+                long threadId = command.readObjectRef();
+                ThreadReferenceImpl thread = gc.getThreadIdentity().getJavaThread(threadId);
+                if (thread == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_THREAD;
+                    return;
+                }
+                // The Java state comes from the VM, whether the thread was stopped from GDB
+                MIThreadRegistry.Entry entry = gc.getThreads().get(Long.toString(threadId));
+                if (entry != null && !entry.hasState()) {
+                    entry = gc.getThreadIdentity().getDetails(threadId);
+                }
+                boolean suspended = (entry != null && !entry.isRunning()) || gc.getSuspension().getSuspendCount(threadId) > 0;
                 answer.writeInt(thread.status());
-                answer.writeInt(thread.suspendCount());
+                answer.writeInt(suspended ? JDWP.SuspendStatus.SUSPEND_STATUS_SUSPENDED : 0);
             }
         }
 
@@ -116,6 +150,10 @@ public class JDWPThreadReference {
 //                answer.writeObjectRef(id);
 
                 ThreadReferenceImpl thread = command.readThreadReference();
+                if (thread == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_THREAD;
+                    return;
+                }
                 answer.writeObjectRef(thread.threadGroup().uniqueID());
             }
         }
@@ -141,39 +179,30 @@ public class JDWPThreadReference {
 
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                int threadId = (int) command.readObjectRef();
+                long threadId = command.readObjectRef();
+                int startFrame = command.readInt();
+                int length = command.readInt(); // -1 for all remaining frames
 
-                System.out.println("Queueing MI command to get frames");
-                MICommand cmd = gc.getCommandFactory().createMIStackListFrames(String.valueOf(threadId));
-                int tokenID = JDWP.getNewTokenId();
-                gc.queueCommand(tokenID, cmd);
-
-                MIStackListFramesInfo reply = (MIStackListFramesInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
-                    answer.pkt.errorCode = JDWP.Error.INTERNAL;
+                FrameCache cache = gc.getFrameCache();
+                FrameCache.Stack stack = cache.getStack(threadId);
+                if (!cache.listJavaFrames(stack, length < 0 ? -1 : startFrame + length, answer)) {
+                    return;
                 }
-
-                MIFrame[] frames = reply.getMIFrames();
-                int framesLength = 0;
-                List<Integer> frameIds = new ArrayList<>();
-                List<LocationImpl> locations = new ArrayList<>();
-
-
-                for (MIFrame frame: frames) {
-                    int frameId = frame.getLevel();
-                    JDWP.framesById.put(frameId, frame);
-
-                    LocationImpl loc = Translator.locationLookup(frame.getFunction(), frame.getLine());
-                    if (loc != null) {
-                        framesLength++;
-                        locations.add(loc);
-                        frameIds.add(frameId);
-                    }
+                int available = stack.getJavaFrames();
+                if (startFrame < 0 || startFrame > available) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_INDEX;
+                    return;
+                }
+                if (length >= 0 && startFrame + length > available) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_LENGTH;
+                    return;
                 }
-                answer.writeInt(framesLength);
-                for (int i = 0; i < framesLength; i++) {
-                    answer.writeFrameRef(frameIds.get(i));
-                    answer.writeLocation(locations.get(i));
+                int end = length < 0 ? available : startFrame + length;
+                answer.writeInt(end - startFrame);
+                for (int i = startFrame; i < end; i++) {
+                    int level = stack.getJavaLevel(i);
+                    answer.writeFrameRef(level);
+                    answer.writeLocation(stack.getLocation(level));
                 }
             }
         }
@@ -188,30 +217,14 @@ public class JDWPThreadReference {
             static final int COMMAND = 7;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                int threadId = (int) command.readObjectRef();
-
-
-
-                System.out.println("Queueing MI command to get frames");
-                MICommand cmd = gc.getCommandFactory().createMIStackListFrames(String.valueOf(threadId));
-                int tokenID = JDWP.getNewTokenId();
-                gc.queueCommand(tokenID, cmd);
-
-                MIStackListFramesInfo reply = (MIStackListFramesInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
-                    answer.pkt.errorCode = JDWP.Error.INTERNAL;
-                }
+                long threadId = command.readObjectRef();
 
-                MIFrame[] frames = reply.getMIFrames();
-                int framesLength = 0;
-
-                for (MIFrame frame: frames) {
-                    LocationImpl loc = Translator.locationLookup(frame.getFunction(), frame.getLine());
-                    if (loc != null) {
-                        framesLength++;
-                    }
+                FrameCache cache = gc.getFrameCache();
+                int count = cache.getJavaFrameCount(cache.getStack(threadId), answer);
+                if (count < 0) {
+                    return;
                 }
-                answer.writeInt(framesLength);
+                answer.writeInt(count);
             }
         }
 
@@ -227,6 +240,10 @@ public class JDWPThreadReference {
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
                 ThreadReferenceImpl thread = command.readThreadReference();
+                if (thread == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_THREAD;
+                    return;
+                }
                 List<ObjectReferenceImpl> ownedMonitors;
                 try {
                     ownedMonitors = thread.ownedMonitors();
@@ -257,6 +274,10 @@ public class JDWPThreadReference {
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
                 ThreadReferenceImpl thread = command.readThreadReference();
+                if (thread == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_THREAD;
+                    return;
+                }
                 try {
                     answer.writeTaggedObjectReference(thread.currentContendedMonitor());
                 } catch (IncompatibleThreadStateException e) {
@@ -297,7 +318,8 @@ public class JDWPThreadReference {
             static final int COMMAND = 12;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                answer.writeInt(1);
+                long threadId = command.readObjectRef();
+                answer.writeInt(gc.getSuspension().getSuspendCount(threadId));
             }
         }
 
@@ -323,6 +345,10 @@ public class JDWPThreadReference {
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
                 ThreadReferenceImpl thread = command.readThreadReference();
+                if (thread == null) {
+                    answer.pkt.errorCode = JDWP.Error.INVALID_THREAD;
+                    return;
+                }
                 List<MonitorInfoImpl> list;
                 try {
                     list = thread.ownedMonitorsAndFrames();
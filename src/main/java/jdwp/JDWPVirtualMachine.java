@@ -1,6 +1,7 @@
 package jdwp;
 
 import com.sun.jdi.VMDisconnectedException;
+import gdb.mi.service.command.MIThreadRegistry;
 import gdb.mi.service.command.commands.MICommand;
 import gdb.mi.service.command.output.*;
 import jdwp.jdi.ReferenceTypeImpl;
@@ -116,21 +117,27 @@ public class JDWPVirtualMachine {
             static final int COMMAND = 4;
 
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
-                System.out.println("Queueing MI command to get all threads application");
-                MICommand cmd = gc.getCommandFactory().createMIThreadInfo();
-                int tokenID = JDWP.getNewTokenId();
-                gc.queueCommand(tokenID, cmd);
+                MIThreadRegistry threads = gc.getThreads();
+                if (!threads.isSeeded()) {
+                    // Threads created before the notifications were followed; their
+                    // details are only asked for once the IDE looks at them
+                    System.out.println("Queueing MI command to get all thread ids");
+                    MICommand cmd = gc.getCommandFactory().createMIThreadListIds();
+                    int tokenID = JDWP.getNewTokenId();
+                    gc.queueCommand(tokenID, cmd);
 
-                MIThreadInfoInfo reply = (MIThreadInfoInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
-                    answer.pkt.errorCode = JDWP.Error.VM_DEAD;
-                    return;
+                    MIThreadListIdsInfo reply = (MIThreadListIdsInfo) gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
+                    if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+                        answer.pkt.errorCode = JDWP.Error.VM_DEAD;
+                        return;
+                    }
+                    threads.seed(reply.getStrThreadIds());
                 }
 
-                MIThread[] allThreads = reply.getThreadList();
+                int[] allThreads = threads.getThreadIds();
                 answer.writeInt(allThreads.length);
-                for(MIThread thread: allThreads){
-                    answer.writeObjectRef(Integer.parseInt(thread.getThreadId()));
+                for (int thread : allThreads) {
+                    answer.writeObjectRef(thread);
                 }
             }
         }
@@ -236,12 +243,8 @@ public class JDWPVirtualMachine {
 
                 try {
                     System.out.println("Queueing MI command to suspend application");
-                    MICommand cmd = gc.getCommandFactory().createMIExecInterrupt(true);
-                    int tokenID = JDWP.getNewTokenId();
-                    gc.queueCommand(tokenID, cmd);
-
-                    MIInfo reply = gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                    if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+                    MIInfo reply = gc.getSuspension().suspendAll();
+                    if (reply != null && reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
                         answer.pkt.errorCode = JDWP.Error.VM_DEAD; // The virtual machine is not running.
                     }
                 } catch (Exception e) {
@@ -263,16 +266,12 @@ public class JDWPVirtualMachine {
             public void reply(GDBControl gc, PacketStream answer, PacketStream command) {
                 try {
                     System.out.println("Queueing MI command to resume application");
-                    MICommand cmd = gc.getCommandFactory().createMIExecContinue(true);
-                    int tokenID = JDWP.getNewTokenId();
-                    gc.queueCommand(tokenID, cmd);
-
-                    MIInfo reply = gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
-                    if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+                    MIInfo reply = gc.getSuspension().resumeAll();
+                    if (reply != null && reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
                         if (reply.getErrorMsg().equals("The program is not being run.")) {
                             // Need to run the program
-                            cmd = gc.getCommandFactory().createMIExecRun();
-                            tokenID = JDWP.getNewTokenId();
+                            MICommand cmd = gc.getCommandFactory().createMIExecRun();
+                            int tokenID = JDWP.getNewTokenId();
                             gc.queueCommand(tokenID, cmd);
 
                             MIInfo reply1 = gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
@@ -0,0 +1,126 @@
+package jdwp;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from non zero long keys to long values, both stored unboxed in one open
+ * addressing table. 0 stands for no value, so it cannot be stored. Not thread safe.
+ */
+final class LongLongMap {
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    LongLongMap() {
+        this(16);
+    }
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    LongLongMap(int capacity) {
+        int length = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        keys = new long[length];
+        values = new long[length];
+    }
+
+    /**
+     * Returns the value of a key, or 0 if there is none.
+     */
+    long get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return 0;
+    }
+
+    void put(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("0 is not a valid key");
+        }
+        if (value == 0) {
+            throw new IllegalArgumentException("0 is not a valid value");
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            size++;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Removes a key and returns its value, or 0 if there was none.
+     */
+    long remove(long key) {
+        if (key == 0) {
+            return 0; // Would match an empty slot
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return 0;
+            }
+            i = (i + 1) & mask;
+        }
+        long value = values[i];
+        size--;
+        // Move back the entries of the probe sequence which would not be found anymore
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = 0;
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private void resize(int length) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[length];
+        values = new long[length];
+        int mask = length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,106 @@
+package jdwp;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.output.MIInfo;
+import gdb.mi.service.command.output.MIResultRecord;
+import gdb.mi.service.command.output.MISymbolVisitor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The source files and functions compiled into the native image, listed once from
+ * GDB's symbols. On a large image these listings run to many megabytes of MI output,
+ * so they are streamed through an {@link MISymbolVisitor} while GDB's answer is
+ * parsed, and only the names needed here are kept.
+ *
+ * Used to turn down breakpoints in code native-image did not compile, which GDB would
+ * otherwise insert at another line.
+ */
+public class NativeSymbols {
+    private final GDBControl gc;
+
+    /** Whether the listings were asked for, whether or not GDB answered */
+    private boolean listed = false;
+    /** Base names of the source files, null if GDB could not list them */
+    private Set<String> sourceFiles;
+    /** Functions without their parameters, by the base name of their source file, null if GDB could not list them */
+    private Map<String, Set<String>> functions;
+
+    public NativeSymbols(GDBControl gc) {
+        this.gc = gc;
+    }
+
+    /**
+     * Returns false if the function, e.g. Hello::main, is known not to be compiled into
+     * the image from the given source file, true if it is or if that is not known.
+     */
+    synchronized boolean isCompiled(String sourceFile, String function) {
+        if (!listed) {
+            listed = true;
+            list();
+        }
+        if (sourceFiles != null && !sourceFiles.isEmpty() && !sourceFiles.contains(sourceFile)) {
+            return false;
+        }
+        Set<String> fileFunctions = functions != null ? functions.get(sourceFile) : null;
+        return fileFunctions == null || fileFunctions.contains(function);
+    }
+
+    private void list() {
+        Set<String> files = new HashSet<>();
+        System.out.println("Queueing MI command to list source files");
+        MICommand filesCmd = gc.getCommandFactory().createMiFileListExecSourceFiles();
+        filesCmd.setResultVisitor(new MISymbolVisitor() {
+            @Override
+            protected void visitFile(String filename, String fullname) {
+                if (filename != null) {
+                    files.add(baseName(filename));
+                }
+            }
+
+            @Override
+            protected void visitSymbol(String name, String type, String description, int line) {
+            }
+        });
+        int filesTokenID = JDWP.getNewTokenId();
+        gc.queueCommand(filesTokenID, filesCmd);
+
+        Map<String, Set<String>> fileFunctions = new HashMap<>();
+        System.out.println("Queueing MI command to list functions");
+        MICommand functionsCmd = gc.getCommandFactory().createMiSymbolInfoFunctions();
+        functionsCmd.setResultVisitor(new MISymbolVisitor() {
+            private Set<String> current;
+
+            @Override
+            protected void visitFile(String filename, String fullname) {
+                current = filename != null ? fileFunctions.computeIfAbsent(baseName(filename), f -> new HashSet<>()) : null;
+            }
+
+            @Override
+            protected void visitSymbol(String name, String type, String description, int line) {
+                if (current != null && name != null) {
+                    int parameters = name.indexOf('(');
+                    current.add(parameters < 0 ? name : name.substring(0, parameters));
+                }
+            }
+        });
+        int functionsTokenID = JDWP.getNewTokenId();
+        gc.queueCommand(functionsTokenID, functionsCmd);
+
+        MIInfo reply = gc.getResponse(filesTokenID, JDWP.DEF_REQUEST_TIMEOUT);
+        if (!reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+            sourceFiles = files;
+        }
+        reply = gc.getResponse(functionsTokenID, JDWP.DEF_REQUEST_TIMEOUT);
+        if (!reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+            functions = fileFunctions;
+        }
+    }
+
+    private static String baseName(String file) {
+        return file.substring(file.lastIndexOf('/') + 1);
+    }
+}
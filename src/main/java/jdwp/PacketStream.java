@@ -405,12 +405,17 @@ public class PacketStream {
         return (ArrayReferenceImpl) gc.vm.objectMirror(ref);
     }
     //
+    /**
+     * Reads a thread id and returns the SA mirror of the thread, or null if it is no
+     * Java thread, which callers answer with INVALID_THREAD.
+     */
     ThreadReferenceImpl readThreadReference() {
-        return gc.vm.getThreadById(readObjectRef());
+        return gc.getThreadIdentity().getJavaThread(readObjectRef());
     }
 
     void writeThreadReference(ThreadReferenceImpl thread) {
-        writeUntaggedObjectReference(thread);
+        // Threads are known to the debugger by their GDB thread id
+        writeObjectRef(thread == null ? 0 : gc.getThreadIdentity().getThreadId(thread));
     }
     //
     ThreadGroupReferenceImpl readThreadGroupReference() {
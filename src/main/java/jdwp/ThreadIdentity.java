@@ -0,0 +1,217 @@
+package jdwp;
+
+import gdb.mi.service.command.MIThreadRegistry;
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.output.MIResultRecord;
+import gdb.mi.service.command.output.MIThread;
+import gdb.mi.service.command.output.MIThreadInfoInfo;
+import jdwp.jdi.ThreadReferenceImpl;
+
+/**
+ * Maps between the identities of a thread: its GDB thread id, which is the object id
+ * of the thread in JDWP, its LWP and its SA mirror. All lookups are hash lookups on
+ * unboxed ids.
+ *
+ * The LWP of a GDB thread never changes, so it is asked for once with a -thread-info
+ * of that thread and then kept until the thread exits. The SA mirrors are indexed by
+ * LWP again after every stop, when the thread list of the VM may have changed. Going
+ * from a mirror back to GDB needs the LWPs of all threads, which a single -thread-info
+ * lists at most once per stop, and only if the thread registry lacks the LWP of some
+ * thread.
+ */
+public class ThreadIdentity {
+    private final GDBControl gc;
+
+    /** LWP by GDB thread id */
+    private final LongLongMap lwpByThread = new LongLongMap();
+    /** GDB thread id by LWP */
+    private final LongLongMap threadByLwp = new LongLongMap();
+    /** SA mirror by LWP, for the current stop; null until first needed */
+    private LongMap<ThreadReferenceImpl> mirrorByLwp;
+
+    private long stop = 0;
+    /** Stop at which all LWPs were listed the last time */
+    private long listedStop = -1;
+
+    public ThreadIdentity(GDBControl gc) {
+        this.gc = gc;
+    }
+
+    /**
+     * Called when the target stopped.
+     */
+    public synchronized void stopped() {
+        stop++;
+        mirrorByLwp = null;
+    }
+
+    /**
+     * Forgets a thread which exited.
+     */
+    public synchronized void threadExited(long threadId) {
+        long lwp = lwpByThread.remove(threadId);
+        if (lwp != 0) {
+            threadByLwp.remove(lwp);
+        }
+    }
+
+    /**
+     * Returns the LWP of a GDB thread, or 0 if there is no such thread.
+     */
+    public long getLwp(long threadId) {
+        synchronized (this) {
+            long lwp = lwpByThread.get(threadId);
+            if (lwp != 0) {
+                return lwp;
+            }
+        }
+        MIThreadRegistry.Entry entry = getDetails(threadId);
+        if (entry == null || entry.getOsId() == null) {
+            return 0;
+        }
+        return record(threadId, entry.getOsId());
+    }
+
+    /**
+     * Returns what the thread registry knows about a thread, asking GDB for its LWP
+     * and name with a -thread-info of that thread only if no -thread-info reported
+     * them yet. Returns null if there is no such thread.
+     */
+    public MIThreadRegistry.Entry getDetails(long threadId) {
+        MIThreadRegistry threads = gc.getThreads();
+        MIThreadRegistry.Entry entry = threads.get(Long.toString(threadId));
+        if (entry != null && entry.hasDetails()) {
+            return entry;
+        }
+        MICommand cmd = gc.getCommandFactory().createMIThreadInfo(Long.toString(threadId));
+        int tokenID = JDWP.getNewTokenId();
+        gc.queueCommand(tokenID, cmd);
+
+        MIThreadInfoInfo reply = (MIThreadInfoInfo) gc.getResponse(tokenID, JDWP.QUERY_REQUEST_TIMEOUT);
+        if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+            return entry;
+        }
+        for (MIThread thread : reply.getThreadList()) {
+            threads.update(thread);
+        }
+        return threads.get(Long.toString(threadId));
+    }
+
+    /**
+     * Returns the SA mirror of a GDB thread, or null if it is not a Java thread.
+     */
+    public ThreadReferenceImpl getJavaThread(long threadId) {
+        long lwp = getLwp(threadId);
+        if (lwp == 0) {
+            return null;
+        }
+        synchronized (this) {
+            return mirrors().get(lwp);
+        }
+    }
+
+    /**
+     * Returns the GDB thread id of an SA mirror, or 0 if GDB does not know its LWP.
+     */
+    public long getThreadId(ThreadReferenceImpl thread) {
+        long lwp = thread.lwp();
+        if (lwp == 0) {
+            return 0;
+        }
+        long listAt;
+        synchronized (this) {
+            long threadId = threadByLwp.get(lwp);
+            if (threadId != 0 || listedStop == stop) {
+                return threadId;
+            }
+            listAt = stop;
+        }
+        if (recordKnownLwps()) {
+            // GDB knows no other threads
+            synchronized (this) {
+                listedStop = listAt;
+                return threadByLwp.get(lwp);
+            }
+        }
+        synchronized (this) {
+            long threadId = threadByLwp.get(lwp);
+            if (threadId != 0) {
+                return threadId;
+            }
+        }
+        listLwps(listAt);
+        synchronized (this) {
+            return threadByLwp.get(lwp);
+        }
+    }
+
+    /**
+     * Records the LWPs the thread registry has from earlier -thread-info results.
+     * Returns whether it had them for all threads, so that no -thread-info is needed.
+     */
+    private boolean recordKnownLwps() {
+        MIThreadRegistry threads = gc.getThreads();
+        boolean complete = threads.isSeeded();
+        for (int id : threads.getThreadIds()) {
+            MIThreadRegistry.Entry entry = threads.get(Integer.toString(id));
+            if (entry == null) {
+                continue; // Exited meanwhile
+            }
+            if (entry.hasDetails()) {
+                record(id, entry.getOsId());
+            } else {
+                complete = false;
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Records the LWPs of all threads with one -thread-info.
+     */
+    private void listLwps(long listAt) {
+        MICommand cmd = gc.getCommandFactory().createMIThreadInfo();
+        int tokenID = JDWP.getNewTokenId();
+        gc.queueCommand(tokenID, cmd);
+
+        MIThreadInfoInfo reply = (MIThreadInfoInfo) gc.getResponse(tokenID, JDWP.QUERY_REQUEST_TIMEOUT);
+        if (reply.getMIOutput().getMIResultRecord().getResultClass().equals(MIResultRecord.ERROR)) {
+            return;
+        }
+        for (MIThread thread : reply.getThreadList()) {
+            gc.getThreads().update(thread);
+            if (thread.getOsId() != null) {
+                record(Long.parseLong(thread.getThreadId()), thread.getOsId());
+            }
+        }
+        synchronized (this) {
+            listedStop = listAt;
+        }
+    }
+
+    private synchronized long record(long threadId, String osId) {
+        long lwp;
+        try {
+            lwp = Long.parseLong(osId);
+        } catch (NumberFormatException e) {
+            // Not an LWP, e.g. the pthread of a thread without libthread_db
+            return 0;
+        }
+        lwpByThread.put(threadId, lwp);
+        threadByLwp.put(lwp, threadId);
+        return lwp;
+    }
+
+    private LongMap<ThreadReferenceImpl> mirrors() {
+        if (mirrorByLwp == null) {
+            mirrorByLwp = new LongMap<>();
+            for (ThreadReferenceImpl thread : gc.vm.allThreads()) {
+                long lwp = thread.lwp();
+                if (lwp != 0) {
+                    mirrorByLwp.put(lwp, thread);
+                }
+            }
+        }
+        return mirrorByLwp;
+    }
+}
@@ -0,0 +1,247 @@
+package jdwp;
+
+import gdb.mi.service.command.MIThreadRegistry;
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.RawCommand;
+import gdb.mi.service.command.output.MIInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suspend counts of the threads, as JDWP defines them: suspends of the whole VM and
+ * of single threads are counted, and a thread only runs again once it was resumed as
+ * many times as it was suspended.
+ *
+ * In GDB's non-stop mode each thread is interrupted and continued on its own, so a
+ * breakpoint with suspend policy EVENT_THREAD only stops the thread which hit it and
+ * the others keep running. In all-stop mode GDB stops and resumes all threads together;
+ * the VM then only resumes once no thread is suspended anymore.
+ *
+ * The counts of threads suspended like all the others are not stored: a thread has its
+ * own count only once it was suspended or resumed on its own, other threads have the
+ * VM count. MI commands are sent outside the lock, so that events processed on the MI
+ * dispatch thread never wait for a request handler waiting for GDB.
+ */
+public class ThreadSuspension {
+    private final GDBControl gc;
+    private final boolean nonStop;
+
+    /** Suspensions of all threads without own count */
+    private int vmCount = 0;
+    private final Map<Long, Integer> threadCounts = new HashMap<>();
+
+    public ThreadSuspension(GDBControl gc, boolean nonStop) {
+        this.gc = gc;
+        this.nonStop = nonStop;
+    }
+
+    public boolean isNonStop() {
+        return nonStop;
+    }
+
+    public synchronized int getSuspendCount(long threadId) {
+        Integer count = threadCounts.get(threadId);
+        return count != null ? count : vmCount;
+    }
+
+    /**
+     * ThreadReference.Suspend. Returns the reply of the interrupt, or null if the
+     * thread was suspended already.
+     */
+    public MIInfo suspendThread(long threadId) {
+        synchronized (this) {
+            int count = getSuspendCount(threadId);
+            boolean stopped = nonStop ? count > 0 : vmCount > 0 || !allResumed();
+            threadCounts.put(threadId, count + 1);
+            if (stopped) {
+                return null;
+            }
+        }
+        return send(nonStop ? gc.getCommandFactory().createMIExecInterrupt((int) threadId)
+                : gc.getCommandFactory().createMIExecInterrupt(true));
+    }
+
+    /**
+     * ThreadReference.Resume. Returns the reply of the continue, or null if the thread
+     * stays suspended.
+     */
+    public MIInfo resumeThread(long threadId) {
+        synchronized (this) {
+            int count = getSuspendCount(threadId);
+            if (count == 0) {
+                return null;
+            }
+            threadCounts.put(threadId, count - 1);
+            if (count > 1) {
+                return null;
+            }
+            if (!nonStop) {
+                if (vmCount > 0 || !allResumed()) {
+                    return null;
+                }
+                threadCounts.clear();
+            }
+        }
+        return send(nonStop ? gc.getCommandFactory().createMIExecContinue((int) threadId)
+                : gc.getCommandFactory().createMIExecContinue(true));
+    }
+
+    /**
+     * VirtualMachine.Suspend. Returns the reply of the interrupt, or null if all
+     * threads were suspended already.
+     */
+    public MIInfo suspendAll() {
+        synchronized (this) {
+            boolean running = vmCount == 0;
+            vmCount++;
+            for (Map.Entry<Long, Integer> entry : threadCounts.entrySet()) {
+                entry.setValue(entry.getValue() + 1);
+            }
+            if (!running) {
+                return null;
+            }
+        }
+        return send(gc.getCommandFactory().createMIExecInterrupt(true));
+    }
+
+    /**
+     * VirtualMachine.Resume. Returns the reply of the (last) continue, or null if
+     * no thread runs again.
+     */
+    public MIInfo resumeAll() {
+        boolean all;
+        synchronized (this) {
+            if (vmCount > 0) {
+                vmCount--;
+            }
+            for (Map.Entry<Long, Integer> entry : threadCounts.entrySet()) {
+                if (entry.getValue() > 0) {
+                    entry.setValue(entry.getValue() - 1);
+                }
+            }
+            forgetCountsEqualToVM();
+            if (vmCount > 0 || (!nonStop && !threadCounts.isEmpty())) {
+                // In all-stop mode GDB cannot leave some threads stopped
+                return null;
+            }
+            all = threadCounts.isEmpty();
+        }
+        if (all) {
+            return send(gc.getCommandFactory().createMIExecContinue(true));
+        }
+
+        // Only continue the stopped threads without suspensions of their own
+        MIThreadRegistry threads = gc.getThreads();
+        List<Integer> resumed = new ArrayList<>();
+        synchronized (this) {
+            for (int id : threads.getThreadIds()) {
+                MIThreadRegistry.Entry thread = threads.get(Integer.toString(id));
+                if (thread != null && !thread.isRunning() && getSuspendCount(id) == 0) {
+                    resumed.add(id);
+                }
+            }
+        }
+        MIInfo reply = null;
+        for (int id : resumed) {
+            reply = send(gc.getCommandFactory().createMIExecContinue(id));
+        }
+        return reply;
+    }
+
+    /**
+     * Called on the MI dispatch thread when a thread stopped for an event requested
+     * with the given suspend policy. Does not wait for GDB.
+     */
+    public void eventStopped(long threadId, byte suspendPolicy) {
+        String command = null;
+        synchronized (this) {
+            if (!nonStop) {
+                // GDB stopped all threads anyway
+                suspendAllCounts();
+            } else if (suspendPolicy == JDWP.SuspendPolicy.NONE) {
+                command = "-exec-continue --thread " + threadId;
+            } else if (suspendPolicy == JDWP.SuspendPolicy.EVENT_THREAD) {
+                threadCounts.put(threadId, getSuspendCount(threadId) + 1);
+            } else {
+                boolean running = vmCount == 0;
+                suspendAllCounts();
+                if (running) {
+                    command = "-exec-interrupt --all";
+                }
+            }
+        }
+        if (command != null) {
+            // Nobody may wait for the reply on the dispatch thread
+            gc.queueCommand(JDWP.getNewTokenId(), new RawCommand(command));
+        }
+    }
+
+    /**
+     * Called on the MI dispatch thread for an event requested with the given suspend
+     * policy which does not stop the thread, e.g. a thread start. Does not wait for GDB.
+     */
+    public void eventRunning(long threadId, byte suspendPolicy) {
+        String command = null;
+        synchronized (this) {
+            if (suspendPolicy == JDWP.SuspendPolicy.NONE) {
+                return;
+            } else if (nonStop && suspendPolicy == JDWP.SuspendPolicy.EVENT_THREAD) {
+                int count = getSuspendCount(threadId);
+                threadCounts.put(threadId, count + 1);
+                if (count == 0) {
+                    command = "-exec-interrupt --thread " + threadId;
+                }
+            } else {
+                boolean running = vmCount == 0;
+                suspendAllCounts();
+                if (running) {
+                    command = "-exec-interrupt --all";
+                }
+            }
+        }
+        if (command != null) {
+            gc.queueCommand(JDWP.getNewTokenId(), new RawCommand(command));
+        }
+    }
+
+    /**
+     * Forgets the own count of a thread which exited.
+     */
+    public synchronized void threadExited(long threadId) {
+        threadCounts.remove(threadId);
+    }
+
+    private void suspendAllCounts() {
+        vmCount++;
+        for (Map.Entry<Long, Integer> entry : threadCounts.entrySet()) {
+            entry.setValue(entry.getValue() + 1);
+        }
+    }
+
+    private boolean allResumed() {
+        for (int count : threadCounts.values()) {
+            if (count > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void forgetCountsEqualToVM() {
+        for (Iterator<Integer> it = threadCounts.values().iterator(); it.hasNext(); ) {
+            if (it.next() == vmCount) {
+                it.remove();
+            }
+        }
+    }
+
+    private MIInfo send(MICommand cmd) {
+        int tokenID = JDWP.getNewTokenId();
+        gc.queueCommand(tokenID, cmd);
+        return gc.getResponse(tokenID, JDWP.DEF_REQUEST_TIMEOUT);
+    }
+}
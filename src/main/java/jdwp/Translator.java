@@ -11,7 +11,9 @@
 
 package jdwp;
 
+import gdb.mi.service.command.MIThreadRegistry;
 import gdb.mi.service.command.events.*;
+import gdb.mi.service.command.output.MIAsyncRecord;
 import gdb.mi.service.command.output.MIBreakInsertInfo;
 import gdb.mi.service.command.output.MIResult;
 import gdb.mi.service.command.output.MIValue;
@@ -22,6 +24,7 @@ import jdwp.jdi.ConcreteMethodImpl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class Translator {
@@ -52,6 +55,62 @@ public class Translator {
 		return null;
 	}
 
+	/**
+	 * Translates a =thread-created or =thread-exited notification into the THREAD_START,
+	 * respectively THREAD_DEATH events requested for the thread, all in one composite
+	 * packet with the strongest of their suspend policies. Returns null if no event was
+	 * requested.
+	 */
+	public static PacketStream translateThreadEvent(GDBControl gc, MIAsyncRecord record) {
+		byte eventKind;
+		if (MIThreadRegistry.CREATED.equals(record.getAsyncClass())) {
+			eventKind = JDWP.EventKind.THREAD_START;
+		} else if (MIThreadRegistry.EXITED.equals(record.getAsyncClass())) {
+			eventKind = JDWP.EventKind.THREAD_DEATH;
+		} else {
+			return null;
+		}
+		String id = MIThreadRegistry.getThreadId(record);
+		if (id == null) {
+			return null;
+		}
+		long threadID = Long.parseLong(id);
+		if (eventKind == JDWP.EventKind.THREAD_DEATH) {
+			gc.getSuspension().threadExited(threadID);
+			gc.getThreadIdentity().threadExited(threadID);
+		}
+
+		List<Integer> requestIds = new ArrayList<>();
+		byte suspendPolicy = JDWP.SuspendPolicy.NONE;
+		for (Map.Entry<Integer, JDWPEventRequest.ThreadEventRequest> entry : JDWP.threadEventsByRequestID.entrySet()) {
+			JDWPEventRequest.ThreadEventRequest request = entry.getValue();
+			if (request.eventKind == eventKind && (request.threadId == 0 || request.threadId == threadID)) {
+				requestIds.add(entry.getKey());
+				suspendPolicy = (byte) Math.max(suspendPolicy, request.suspendPolicy);
+			}
+		}
+		if (requestIds.isEmpty()) {
+			return null;
+		}
+		if (eventKind == JDWP.EventKind.THREAD_START) {
+			gc.getSuspension().eventRunning(threadID, suspendPolicy);
+		} else if (suspendPolicy != JDWP.SuspendPolicy.NONE) {
+			// There is no thread left to suspend on its own
+			suspendPolicy = JDWP.SuspendPolicy.ALL;
+			gc.getSuspension().eventRunning(threadID, suspendPolicy);
+		}
+
+		PacketStream packetStream = new PacketStream(gc);
+		packetStream.writeByte(suspendPolicy);
+		packetStream.writeInt(requestIds.size()); // Number of events in this response packet
+		for (int requestId : requestIds) {
+			packetStream.writeByte(eventKind);
+			packetStream.writeInt(requestId);
+			packetStream.writeObjectRef(threadID);
+		}
+		return packetStream;
+	}
+
 	private static PacketStream translateClassPrepare(GDBControl gc, ClassPrepareEvent event) {
 		PacketStream packetStream = new PacketStream(gc);
 		byte eventKind = JDWP.EventKind.CLASS_PREPARE;
@@ -91,6 +150,7 @@ public class Translator {
 		byte eventKind = info.getMIInfoEventKind();
 		LocationImpl loc = JDWP.bkptsLocation.get(eventNumber);
 		long threadID = getThreadId(event);
+		gc.getSuspension().eventStopped(threadID, suspendPolicy);
 
 		packetStream.writeByte(suspendPolicy);
 		packetStream.writeInt(1); // Number of events in this response packet
@@ -119,6 +179,7 @@ public class Translator {
 		if (info == null) {
 			return null;
 		}
+		gc.getSuspension().eventStopped(threadID, info.getMIInfoSuspendPolicy());
 
 		packetStream.writeByte(info.getMIInfoSuspendPolicy());
 		packetStream.writeInt(1); // Number of events in this response packet
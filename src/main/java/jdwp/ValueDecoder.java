@@ -0,0 +1,270 @@
+package jdwp;
+
+import gdb.gdb.GDBTypeParser.GDBType;
+import gdb.mi.service.command.output.MIStringHandler;
+import jdwp.jdi.ObjectReferenceImpl;
+import jdwp.jdi.ThreadReferenceImpl;
+
+/**
+ * Writes values as GDB prints them as JDWP tagged values. The tag comes from the slot
+ * signature byte the IDE asked with, refined by the signature of the local for the
+ * object tags of strings, threads and classes. Numbers are scanned in place rather
+ * than matched, and written straight into the packet.
+ *
+ * GDB prints integers in decimal, possibly followed by the character for chars and
+ * bytes (65 'A'), and references as an address, possibly after a cast and followed by
+ * a symbol or string (0x7ffff7a0c000 "abc"). References are written as the address,
+ * which is what object ids are, except threads: their ids are GDB thread ids, so a
+ * thread without one is written as a plain object.
+ */
+final class ValueDecoder {
+    private ValueDecoder() {}  // hide constructor
+
+    /**
+     * Writes a value with its tag. Returns false without writing anything if the
+     * value cannot be read as the given type, e.g. an object GDB printed as a struct.
+     *
+     * @param tag       the signature byte of the slot
+     * @param signature the signature of the local, null if not known
+     * @param type      the GDB type of the value, null if not known
+     */
+    static boolean writeValue(PacketStream out, byte tag, String signature, GDBType type, String value) {
+        if (value == null) {
+            return false;
+        }
+        try {
+            switch (tag) {
+                case JDWP.Tag.BOOLEAN: {
+                    boolean b = parseBoolean(value);
+                    out.writeByte(tag);
+                    out.writeBoolean(b);
+                    return true;
+                }
+                case JDWP.Tag.BYTE: {
+                    byte b = (byte) parseInteger(value);
+                    out.writeByte(tag);
+                    out.writeByte(b);
+                    return true;
+                }
+                case JDWP.Tag.CHAR: {
+                    char c = parseChar(value);
+                    out.writeByte(tag);
+                    out.writeChar(c);
+                    return true;
+                }
+                case JDWP.Tag.SHORT: {
+                    short s = (short) parseInteger(value);
+                    out.writeByte(tag);
+                    out.writeShort(s);
+                    return true;
+                }
+                case JDWP.Tag.INT: {
+                    int i = (int) parseInteger(value);
+                    out.writeByte(tag);
+                    out.writeInt(i);
+                    return true;
+                }
+                case JDWP.Tag.LONG: {
+                    long l = parseInteger(value);
+                    out.writeByte(tag);
+                    out.writeLong(l);
+                    return true;
+                }
+                case JDWP.Tag.FLOAT: {
+                    float f = (float) parseDouble(value);
+                    out.writeByte(tag);
+                    out.writeFloat(f);
+                    return true;
+                }
+                case JDWP.Tag.DOUBLE: {
+                    double d = parseDouble(value);
+                    out.writeByte(tag);
+                    out.writeDouble(d);
+                    return true;
+                }
+                default: {
+                    if (type != null && type.getType() != GDBType.POINTER && type.getType() != GDBType.REFERENCE
+                            && type.getType() != GDBType.GENERIC) {
+                        // Arrays and functions have no address GDB would print as value
+                        return false;
+                    }
+                    long address = parseInteger(value);
+                    byte objectTag = objectTag(tag, signature);
+                    if (objectTag == JDWP.Tag.THREAD && address != 0) {
+                        long threadId = threadId(out.gc, address);
+                        if (threadId != 0) {
+                            out.writeByte(objectTag);
+                            out.writeObjectRef(threadId);
+                            return true;
+                        }
+                        // Not started or exited, no thread id to give it
+                        objectTag = JDWP.Tag.OBJECT;
+                    }
+                    out.writeByte(objectTag);
+                    out.writeObjectRef(address);
+                    return true;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the tag of an object in a slot with the given signature byte.
+     */
+    static byte objectTag(byte tag, String signature) {
+        if (tag == JDWP.Tag.ARRAY || signature == null) {
+            return tag;
+        }
+        switch (signature) {
+            case "Ljava/lang/String;":
+                return JDWP.Tag.STRING;
+            case "Ljava/lang/Thread;":
+                return JDWP.Tag.THREAD;
+            case "Ljava/lang/ThreadGroup;":
+                return JDWP.Tag.THREAD_GROUP;
+            case "Ljava/lang/Class;":
+                return JDWP.Tag.CLASS_OBJECT;
+            case "Ljava/lang/ClassLoader;":
+                return JDWP.Tag.CLASS_LOADER;
+            default:
+                return JDWP.Tag.OBJECT;
+        }
+    }
+
+    /**
+     * Returns the GDB thread id of the java.lang.Thread at an address, which is its
+     * object id in JDWP, or 0 if it has no running thread.
+     */
+    private static long threadId(GDBControl gc, long address) {
+        ObjectReferenceImpl object;
+        try {
+            object = gc.vm.objectMirror(address);
+        } catch (RuntimeException e) {
+            return 0; // Not an object the SA can read
+        }
+        if (!(object instanceof ThreadReferenceImpl)) {
+            return 0;
+        }
+        return gc.getThreadIdentity().getThreadId((ThreadReferenceImpl) object);
+    }
+
+    /**
+     * Returns the index of the first character of a value after blanks and a cast.
+     */
+    private static int skipCast(String value) {
+        int i = skipBlanks(value, 0);
+        if (i < value.length() && value.charAt(i) == '(') {
+            int close = value.indexOf(')', i);
+            if (close > 0) {
+                i = skipBlanks(value, close + 1);
+            }
+        }
+        return i;
+    }
+
+    private static int skipBlanks(String value, int i) {
+        while (i < value.length() && value.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Scans a decimal or hexadecimal integer at the start of a value and ignores what
+     * follows it. Values beyond 64 bits wrap around.
+     */
+    static long parseInteger(String value) {
+        int i = skipCast(value);
+        int length = value.length();
+        boolean negative = false;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        long result = 0;
+        int start;
+        if (i + 1 < length && value.charAt(i) == '0' && (value.charAt(i + 1) == 'x' || value.charAt(i + 1) == 'X')) {
+            i += 2;
+            start = i;
+            for (; i < length; i++) {
+                int digit = Character.digit(value.charAt(i), 16);
+                if (digit < 0) {
+                    break;
+                }
+                result = (result << 4) | digit;
+            }
+        } else {
+            start = i;
+            for (; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                result = result * 10 + (c - '0');
+            }
+        }
+        if (i == start) {
+            throw new NumberFormatException(value);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Reads true and false, or an integer which is true unless 0.
+     */
+    static boolean parseBoolean(String value) {
+        int i = skipBlanks(value, 0);
+        if (value.startsWith("true", i)) {
+            return true;
+        } else if (value.startsWith("false", i)) {
+            return false;
+        }
+        return parseInteger(value) != 0;
+    }
+
+    /**
+     * Reads the code GDB prints before a char literal (10 '\\n'), or decodes the literal
+     * if GDB printed only that.
+     */
+    static char parseChar(String value) {
+        int i = skipBlanks(value, 0);
+        if (i < value.length() && value.charAt(i) == '\'') {
+            int close = value.indexOf('\'', i + 2);
+            String literal = MIStringHandler.parseString(value.substring(i + 1, close > 0 ? close : value.length()));
+            if (literal.isEmpty()) {
+                throw new NumberFormatException(value);
+            }
+            return literal.charAt(0);
+        }
+        return (char) parseInteger(value);
+    }
+
+    /**
+     * Scans a floating point number at the start of a value, including GDB's inf and
+     * nan(0x...), and ignores what follows it.
+     */
+    static double parseDouble(String value) {
+        int start = skipBlanks(value, 0);
+        int i = start;
+        int length = value.length();
+        boolean negative = i < length && value.charAt(i) == '-';
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            i++;
+        }
+        if (value.startsWith("inf", i)) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        } else if (value.startsWith("nan", i)) {
+            return Double.NaN;
+        }
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E'
+                    || ((c == '-' || c == '+') && (value.charAt(i - 1) == 'e' || value.charAt(i - 1) == 'E')))) {
+                break;
+            }
+        }
+        return Double.parseDouble(value.substring(start, i));
+    }
+}
@@ -90,6 +90,17 @@ public class ThreadReferenceImpl extends ObjectReferenceImpl implements /* impor
         return myJavaThread;
     }
 
+    /**
+     * Returns the id of the thread in the OS, i.e. its LWP on Linux, or 0 if the
+     * thread is not started or already terminated.
+     */
+    public long lwp() {
+        if (myJavaThread == null || myJavaThread.getOSThread() == null) {
+            return 0;
+        }
+        return myJavaThread.getOSThread().threadId();
+    }
+
     protected String description() {
         return "ThreadReference " + uniqueID();
     }
@@ -703,25 +703,6 @@ public class VirtualMachineImpl {
        }
    }
 
-    public ThreadReferenceImpl getThreadById(long id) {
-        // Start Hack
-        if (id == 1) { //asking for main thread
-            for (ThreadReferenceImpl thread : allThreads()) {
-                if ("main".equals(thread.name())) {
-                    return thread;
-                }
-            }
-        }
-        // End Hack
-
-        for (ThreadReferenceImpl thread : allThreads()) {
-            if (thread.uniqueID() == id) {
-                return thread;
-            }
-        }
-        throw new IllegalStateException("Thread with id " + id + " not found");
-    }
-
     public ReferenceTypeImpl getReferenceTypeById(long id) {
         ReferenceTypeImpl res = typesById.get(id);
         if (res == null) {
@@ -0,0 +1,137 @@
+# MI commands which answer in one round trip what takes several plain MI commands.
+#
+# Loaded into GDB by the debugger bridge with "source". Needs GDB 13 or later,
+# which has gdb.MICommand; the bridge falls back to plain MI when the commands
+# are missing.
+
+import gdb
+
+
+def _find_thread(global_num):
+    for thread in gdb.selected_inferior().threads():
+        if thread.global_num == global_num:
+            return thread
+    raise gdb.GdbError("Invalid thread id: %d" % global_num)
+
+
+class _SelectionSaved(object):
+    """Restores the selected thread and frame, which MI commands of the
+    other UIs rely on."""
+
+    def __enter__(self):
+        self.thread = gdb.selected_thread()
+        try:
+            self.frame = gdb.selected_frame()
+        except gdb.error:
+            self.frame = None
+        return self
+
+    def __exit__(self, *args):
+        if self.thread is not None and self.thread.is_valid():
+            self.thread.switch()
+            if self.frame is not None and self.frame.is_valid():
+                self.frame.select()
+        return False
+
+
+def _variables(frame):
+    """Arguments and locals visible in the frame, innermost block first,
+    in the order of -stack-list-variables."""
+    symbols = []
+    seen = set()
+    try:
+        block = frame.block()
+    except RuntimeError:
+        return symbols
+    while block is not None:
+        for symbol in block:
+            if (symbol.is_argument or symbol.is_variable) and symbol.name not in seen:
+                seen.add(symbol.name)
+                symbols.append(symbol)
+        if block.function is not None:
+            break
+        block = block.superblock
+    return symbols
+
+
+def _value(symbol, frame):
+    try:
+        return str(symbol.value(frame))
+    except gdb.error as e:
+        return "<error: %s>" % e
+
+
+def _frame_at(level):
+    frame = gdb.newest_frame()
+    for _ in range(level):
+        frame = frame.older()
+        if frame is None:
+            raise gdb.GdbError("Invalid frame level: %d" % level)
+    return frame
+
+
+class JavaFramesWithLocals(gdb.MICommand):
+    """-java-frames-with-locals THREAD LOW HIGH
+
+    Lists the frames LOW to HIGH of a thread, HIGH -1 meaning the outermost one,
+    each with its arguments and locals, together with the depth of the stack.
+    Replaces -stack-info-depth, -stack-list-frames and one -stack-list-variables
+    per frame."""
+
+    def __init__(self):
+        super(JavaFramesWithLocals, self).__init__("-java-frames-with-locals")
+
+    def invoke(self, argv):
+        if len(argv) != 3:
+            raise gdb.GdbError("Usage: -java-frames-with-locals THREAD LOW HIGH")
+        low = int(argv[1])
+        high = int(argv[2])
+        frames = []
+        depth = 0
+        with _SelectionSaved():
+            _find_thread(int(argv[0])).switch()
+            frame = gdb.newest_frame()
+            while frame is not None:
+                if depth >= low and (high < 0 or depth <= high):
+                    frames.append(self._describe(frame, depth))
+                depth += 1
+                frame = frame.older()
+        return {"depth": depth, "frames": frames}
+
+    @staticmethod
+    def _describe(frame, level):
+        described = {"level": level, "addr": hex(frame.pc()), "func": frame.name() or "??"}
+        sal = frame.find_sal()
+        if sal.symtab is not None:
+            described["file"] = sal.symtab.filename
+            described["fullname"] = sal.symtab.fullname()
+            described["line"] = sal.line
+        described["locals"] = [{"name": s.name, "value": _value(s, frame)} for s in _variables(frame)]
+        return described
+
+
+class JavaAssignLocal(gdb.MICommand):
+    """-java-assign-local THREAD FRAME NAME EXPRESSION
+
+    Assigns EXPRESSION to the argument or local NAME visible in the frame,
+    without changing the selected thread and frame. The bridge maps JDWP slots
+    to names, the order of the variables in GDB's blocks is not the slot order.
+    Replaces -thread-select, -stack-select-frame and -var-assign."""
+
+    def __init__(self):
+        super(JavaAssignLocal, self).__init__("-java-assign-local")
+
+    def invoke(self, argv):
+        if len(argv) != 4:
+            raise gdb.GdbError("Usage: -java-assign-local THREAD FRAME NAME EXPRESSION")
+        with _SelectionSaved():
+            _find_thread(int(argv[0])).switch()
+            frame = _frame_at(int(argv[1]))
+            if argv[2] not in [s.name for s in _variables(frame)]:
+                raise gdb.GdbError("No argument or local %s in frame %s" % (argv[2], argv[1]))
+            frame.select()
+            value = gdb.parse_and_eval("%s = %s" % (argv[2], argv[3]))
+            return {"value": str(value)}
+
+JavaFramesWithLocals()
+JavaAssignLocal()
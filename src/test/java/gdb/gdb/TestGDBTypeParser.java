@@ -0,0 +1,45 @@
+package gdb.gdb;
+
+import gdb.gdb.GDBTypeParser.GDBDerivedType;
+import gdb.gdb.GDBTypeParser.GDBType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verifies that types are parsed as before and that a type string seen already is
+ * answered with the same shared type.
+ */
+public class TestGDBTypeParser {
+
+	@Test
+	public void declaratorsShouldParse() {
+		GDBTypeParser parser = new GDBTypeParser();
+
+		assertEquals("char **", GDBTypeParser.unParse(parser.parse("char **argv"))); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(" argv", parser.getVariableName()); //$NON-NLS-1$
+		assertEquals("int (*)[13]", GDBTypeParser.unParse(parser.parse("int (*daytab)[13]"))); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("class ns::link<8,ns::A>  *", //$NON-NLS-1$
+				GDBTypeParser.unParse(parser.parse("class ns::link<8, ns::A> : public ns::B { int i; } *"))); //$NON-NLS-1$
+	}
+
+	@Test
+	public void qualifiersShouldBeDropped() {
+		GDBType type = new GDBTypeParser().parse("const java.lang.String volatile *"); //$NON-NLS-1$
+
+		assertEquals(GDBType.POINTER, type.getType());
+		assertEquals(" java.lang.String", ((GDBDerivedType) type).getChild().getTypeName()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void repeatedTypeShouldBeShared() {
+		GDBType first = new GDBTypeParser().parse("int [2][3]"); //$NON-NLS-1$
+		GDBTypeParser parser = new GDBTypeParser();
+		GDBType second = parser.parse("int [2][3]"); //$NON-NLS-1$
+
+		assertSame(first, second);
+		assertEquals(2, ((GDBDerivedType) second).getDimension());
+		assertEquals("int [2][3]", GDBTypeParser.unParse(second)); //$NON-NLS-1$
+	}
+}
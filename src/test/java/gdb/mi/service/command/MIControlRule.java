@@ -0,0 +1,84 @@
+package gdb.mi.service.command;
+
+import org.junit.rules.ExternalResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Opens MI controls talking to a fake GDB, whose output the test writes and whose
+ * input it reads, and stops all of them after the test.
+ */
+public class MIControlRule extends ExternalResource {
+
+	/**
+	 * One MI control and the streams of its fake GDB.
+	 */
+	public static class Channel {
+		public final AbstractMIControl control = new AbstractMIControl() {};
+		private final PipedOutputStream fGdbStdout = new PipedOutputStream();
+		private final ByteArrayOutputStream fGdbStdin = new ByteArrayOutputStream();
+
+		private Channel() throws IOException {
+			control.startCommandProcessing(new PipedInputStream(fGdbStdout), fGdbStdin, null);
+		}
+
+		/**
+		 * Writes lines as GDB's output.
+		 */
+		public void reply(String output) throws IOException {
+			fGdbStdout.write(output.getBytes());
+			fGdbStdout.flush();
+		}
+
+		/**
+		 * Waits until the commands sent to GDB so far are the expected ones.
+		 */
+		public void waitForInput(String expected) throws InterruptedException {
+			for (int i = 0; i < 500 && !fGdbStdin.toString().equals(expected); i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(expected, fGdbStdin.toString());
+		}
+
+		/**
+		 * Returns the commands sent to GDB so far.
+		 */
+		public String getInput() {
+			return fGdbStdin.toString();
+		}
+
+		private void close() {
+			control.stopCommandProcessing();
+			try {
+				fGdbStdout.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	private final List<Channel> fChannels = new ArrayList<>();
+
+	/**
+	 * Returns a started control, stopped after the test.
+	 */
+	public Channel open() throws IOException {
+		Channel channel = new Channel();
+		fChannels.add(channel);
+		return channel;
+	}
+
+	@Override
+	protected void after() {
+		for (Channel channel : fChannels) {
+			channel.close();
+		}
+		fChannels.clear();
+	}
+}
@@ -0,0 +1,184 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MIConst;
+import gdb.mi.service.command.output.MIList;
+import gdb.mi.service.command.output.MIParser;
+import gdb.mi.service.command.output.MIResultRecord;
+import gdb.mi.service.command.output.MIStringHandler;
+import gdb.mi.service.command.output.MITuple;
+import gdb.mi.service.command.output.MIValue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures MI parser throughput and allocation on the replies of -symbol-info-functions,
+ * -stack-list-variables and -thread-info, in eager and lazy mode. Each iteration reads a
+ * few fields of every entry, as the MIInfo subclasses typically do.
+ *
+ * The replies are read from MI transcripts captured from GDB on a native image with
+ * captureMITranscripts.sh: the files given as arguments, or else the ones in the test
+ * resources under mi/. A transcript holds GDB's output for one command, of which the
+ * result records are parsed. Without transcripts, synthetic replies of the given number
+ * of entries are used instead. Not run by surefire; start it with the test classpath:
+ *
+ * <pre>java -cp target/classes:target/test-classes gdb.mi.service.command.MIParserBenchmark [entries | transcript...]</pre>
+ */
+public class MIParserBenchmark {
+	private static final String[] COMMANDS = { "symbol-info-functions", "stack-list-variables", "thread-info" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> replies = new LinkedHashMap<>();
+		if (args.length > 0 && !args[0].matches("\\d+")) { //$NON-NLS-1$
+			for (String arg : args) {
+				Path path = Paths.get(arg);
+				try (InputStream in = Files.newInputStream(path)) {
+					replies.put(path.getFileName().toString(), resultRecord(in));
+				}
+			}
+		} else if (args.length == 0) {
+			for (String command : COMMANDS) {
+				try (InputStream in = MIParserBenchmark.class.getResourceAsStream("/mi/" + command + ".mi")) { //$NON-NLS-1$ //$NON-NLS-2$
+					if (in != null) {
+						replies.put("-" + command, resultRecord(in)); //$NON-NLS-1$
+					}
+				}
+			}
+		}
+		if (replies.isEmpty()) {
+			int entries = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+			System.out.println("No MI transcripts, using synthetic replies"); //$NON-NLS-1$
+			replies.put("-symbol-info-functions", symbolInfoFunctions(entries)); //$NON-NLS-1$
+			replies.put("-stack-list-variables", stackListVariables(entries)); //$NON-NLS-1$
+			replies.put("-thread-info", threadInfo(entries / 10)); //$NON-NLS-1$
+		}
+		for (boolean lazy : new boolean[] { false, true }) {
+			for (Map.Entry<String, String> reply : replies.entrySet()) {
+				benchmark(reply.getKey(), reply.getValue(), lazy);
+			}
+		}
+	}
+
+	/**
+	 * Returns the longest result record of a transcript, i.e. the reply to its command.
+	 */
+	private static String resultRecord(InputStream in) throws IOException {
+		String record = null;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, MIStringHandler.CHARSET));
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			if (line.matches("\\d*\\^done,.*") && (record == null || line.length() > record.length())) { //$NON-NLS-1$
+				record = line;
+			}
+		}
+		if (record == null) {
+			throw new IOException("No result record in MI transcript"); //$NON-NLS-1$
+		}
+		return record;
+	}
+
+	private static void benchmark(String name, String line, boolean lazy) {
+		MIParser parser = new MIParser();
+		parser.setLazy(lazy);
+		for (int i = 0; i < 20; i++) {
+			touch(parser.parseMIResultRecord(line));
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		int iterations = 50;
+		long allocated = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			if (touch(parser.parseMIResultRecord(line)) == 0) {
+				throw new IllegalStateException("Nothing parsed");
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+		double millis = elapsed / 1e6 / iterations;
+		double mbPerSec = line.length() / 1e6 / (millis / 1000);
+		System.out.printf("%-24s %-5s %8d chars %10.2f ms/line %8.1f MB/s %8.1f MB allocated/line%n", //$NON-NLS-1$
+				name, lazy ? "lazy" : "eager", line.length(), millis, mbPerSec, allocated / 1e6 / iterations); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Reads one field of every tuple found in the record's first list, or in the symbol
+	 * lists of every file, returns the count.
+	 */
+	private static int touch(MIResultRecord rr) {
+		MIValue value = rr.getMIResults()[0].getMIValue();
+		if (value instanceof MITuple) {
+			// -symbol-info-functions: symbols={debug=[{...,symbols=[...]},...]}
+			int count = 0;
+			MIList debug = (MIList) ((MITuple) value).getField("debug"); //$NON-NLS-1$
+			for (MIValue file : debug.getMIValues()) {
+				count += touch((MIList) ((MITuple) file).getField("symbols")); //$NON-NLS-1$
+			}
+			return count;
+		}
+		return touch((MIList) value);
+	}
+
+	private static int touch(MIList list) {
+		int count = 0;
+		for (MIValue entry : list.getMIValues()) {
+			MIValue name = ((MITuple) entry).getField("name"); //$NON-NLS-1$
+			if (name == null) {
+				name = ((MITuple) entry).getField("id"); //$NON-NLS-1$
+			}
+			count += ((MIConst) name).getCString().isEmpty() ? 0 : 1;
+		}
+		return count;
+	}
+
+	private static String symbolInfoFunctions(int entries) {
+		StringBuilder sb = new StringBuilder("1^done,symbols={debug=[{filename=\"Hello.java\",fullname=\"/jdwp/apps/Hello.java\",symbols=["); //$NON-NLS-1$
+		for (int i = 0; i < entries; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{line=\"").append(i % 500 + 1) //$NON-NLS-1$
+					.append("\",name=\"com.example.pkg").append(i % 37).append(".Type").append(i) //$NON-NLS-1$ //$NON-NLS-2$
+					.append("::method").append(i).append("(java.lang.String[] *, int)\",type=\"void (java.lang.String[] *, int)\",description=\"void com.example.Type") //$NON-NLS-1$ //$NON-NLS-2$
+					.append(i).append("::method(java.lang.String[] *, int);\"}"); //$NON-NLS-1$
+		}
+		return sb.append("]}]}").toString(); //$NON-NLS-1$
+	}
+
+	private static String stackListVariables(int entries) {
+		StringBuilder sb = new StringBuilder("2^done,variables=["); //$NON-NLS-1$
+		for (int i = 0; i < entries; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{name=\"local").append(i) //$NON-NLS-1$
+					.append("\",arg=\"1\",value=\"0x7ffff").append(Integer.toHexString(i)) //$NON-NLS-1$
+					.append(" <str \\\"quoted\\\" \\\\path>\"}"); //$NON-NLS-1$
+		}
+		return sb.append(']').toString();
+	}
+
+	private static String threadInfo(int threads) {
+		StringBuilder sb = new StringBuilder("3^done,threads=["); //$NON-NLS-1$
+		for (int i = 0; i < threads; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{id=\"").append(i + 1) //$NON-NLS-1$
+					.append("\",target-id=\"Thread 0x7ffff").append(Integer.toHexString(i)).append(" (LWP ").append(1000 + i) //$NON-NLS-1$ //$NON-NLS-2$
+					.append(")\",name=\"worker-").append(i) //$NON-NLS-1$
+					.append("\",frame={level=\"0\",addr=\"0x00000000004").append(Integer.toHexString(i)) //$NON-NLS-1$
+					.append("\",func=\"java.lang.Object::wait(long)\",args=[{name=\"this\",value=\"0x7ffff0001000\"},{name=\"timeout\",value=\"0\"}]") //$NON-NLS-1$
+					.append(",file=\"Object.java\",fullname=\"/jdk/src/java.base/share/classes/java/lang/Object.java\",line=\"321\",arch=\"i386:x86-64\"}") //$NON-NLS-1$
+					.append(",state=\"stopped\",core=\"").append(i % 8).append("\"}"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return sb.append("],current-thread-id=\"1\"").toString(); //$NON-NLS-1$
+	}
+}
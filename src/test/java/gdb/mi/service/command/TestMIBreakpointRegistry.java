@@ -0,0 +1,72 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MIAsyncRecord;
+import gdb.mi.service.command.output.MIBreakInsertInfo;
+import gdb.mi.service.command.output.MIOOBRecord;
+import gdb.mi.service.command.output.MIOutput;
+import gdb.mi.service.command.output.MIParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that the breakpoint registry follows GDB's breakpoint notifications.
+ */
+public class TestMIBreakpointRegistry {
+	private final MIParser fParser = new MIParser();
+
+	@Test
+	public void modifiedNotificationShouldUpdateHitCount() {
+		MIBreakpointRegistry registry = new MIBreakpointRegistry();
+		MIOutput inserted = new MIOutput(fParser.parseMIResultRecord("^done,bkpt={number=\"1\",type=\"breakpoint\","
+				+ "disp=\"keep\",enabled=\"y\",addr=\"0x0804846b\",func=\"main\",file=\"Hello.java\",line=\"4\",times=\"0\"}"),
+				new MIOOBRecord[0]);
+		registry.update(new MIBreakInsertInfo(inserted).getMIBreakpoint());
+
+		assertTrue(registry.notify(notification("=breakpoint-modified,bkpt={number=\"1\",type=\"breakpoint\","
+				+ "disp=\"keep\",enabled=\"y\",addr=\"0x0804846b\",func=\"main\",file=\"Hello.java\",line=\"4\","
+				+ "cond=\"i == 3\",times=\"2\"}")));
+
+		assertEquals(2, registry.get("1").getTimes());
+		assertEquals("i == 3", registry.get("1").getCondition());
+	}
+
+	@Test
+	public void createdAndDeletedNotificationsShouldTrackBreakpoints() {
+		MIBreakpointRegistry registry = new MIBreakpointRegistry();
+		registry.notify(notification("=breakpoint-created,bkpt={number=\"3\",type=\"breakpoint\",disp=\"keep\","
+				+ "enabled=\"y\",addr=\"<PENDING>\",pending=\"Other.java:26\",times=\"0\",original-location=\"Other.java:26\"}"));
+		registry.notify(notification("=breakpoint-created,bkpt={number=\"2\",type=\"breakpoint\",disp=\"keep\","
+				+ "enabled=\"y\",addr=\"0x0804846b\",func=\"main\",file=\"Hello.java\",line=\"4\",times=\"0\"}"));
+
+		assertEquals("main", registry.get("2").getFunction());
+		assertTrue(registry.get("3").isPending());
+
+		registry.notify(notification("=breakpoint-deleted,id=\"3\""));
+		assertNull(registry.get("3"));
+	}
+
+	@Test
+	public void invalidLocationsShouldBeKeptApart() {
+		MIBreakpointRegistry registry = new MIBreakpointRegistry();
+		registry.addInvalidLocation("Hello.java:7");
+
+		assertTrue(registry.isInvalidLocation("Hello.java:7"));
+		assertFalse(registry.isInvalidLocation("Hello.java:4"));
+		assertNull(registry.get("1"));
+	}
+
+	@Test
+	public void otherNotificationsShouldBeIgnored() {
+		MIBreakpointRegistry registry = new MIBreakpointRegistry();
+
+		assertFalse(registry.notify(notification("=thread-created,id=\"2\",group-id=\"i1\"")));
+	}
+
+	private MIAsyncRecord notification(String line) {
+		return (MIAsyncRecord) fParser.parseMIOOBRecord(line);
+	}
+}
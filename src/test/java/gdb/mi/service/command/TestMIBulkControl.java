@@ -0,0 +1,61 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.MIStackListFrames;
+import gdb.mi.service.command.commands.MIThreadInfo;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that bulk queries are sent to the second MI channel, and that its cached
+ * results are dropped when the primary channel sees the target resume or stop.
+ */
+public class TestMIBulkControl {
+	@Rule
+	public final MIControlRule fGdb = new MIControlRule();
+
+	@Test
+	public void bulkQueryShouldBeRoutedToSecondChannel() throws IOException, InterruptedException {
+		MIControlRule.Channel primary = fGdb.open();
+		MIControlRule.Channel bulk = fGdb.open();
+		primary.control.setBulkControl(bulk.control);
+
+		primary.control.queueCommand(1, (MICommand) new MIStackListFrames("1"));
+		primary.control.queueCommand(2, (MICommand) new MIThreadInfo("1"));
+		bulk.waitForInput("1-stack-list-frames --thread 1\n");
+		primary.waitForInput("2-thread-info 1\n");
+
+		bulk.reply("1^done,stack=[]\n");
+		primary.reply("2^done,threads=[]\n");
+		assertTrue(primary.control.getResponse(1, 5000).isDone());
+		assertTrue(primary.control.getResponse(2, 5000).isDone());
+	}
+
+	@Test
+	public void stopEpochShouldFollowPrimaryChannel() throws IOException, InterruptedException {
+		MIControlRule.Channel primary = fGdb.open();
+		MIControlRule.Channel bulk = fGdb.open();
+		primary.control.setBulkControl(bulk.control);
+
+		primary.control.queueCommand(1, (MICommand) new MIThreadInfo());
+		bulk.waitForInput("1-thread-info\n");
+		bulk.reply("1^done,threads=[]\n");
+		assertTrue(primary.control.getResponse(1, 5000).isDone());
+
+		primary.control.queueCommand(2, (MICommand) new MIThreadInfo());
+		assertTrue(primary.control.getResponse(2, 5000).isDone());
+		assertEquals(1, bulk.control.getCacheHitCount());
+
+		primary.control.advanceStopEpoch(false);
+		primary.control.queueCommand(3, (MICommand) new MIThreadInfo());
+		bulk.waitForInput("1-thread-info\n3-thread-info\n");
+		bulk.reply("3^done,threads=[]\n");
+		assertTrue(primary.control.getResponse(3, 5000).isDone());
+		assertEquals(1, bulk.control.getCacheHitCount());
+	}
+}
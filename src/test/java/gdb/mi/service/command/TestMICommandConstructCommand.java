@@ -1,11 +1,21 @@
 package gdb.mi.service.command;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.MICommandBuffer;
+import gdb.mi.service.command.commands.MIStackListFrames;
+import gdb.mi.service.command.commands.MIThreadInfo;
+import gdb.mi.service.command.commands.RawCommand;
 import gdb.mi.service.command.output.MIInfo;
+import gdb.mi.service.command.output.MIStringHandler;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
 /**
  * Test verifying that the construct command method handles separators and
  * escaping correctly
@@ -29,4 +39,22 @@ public class TestMICommandConstructCommand {
 				result);
 	}
 
+	@Test
+	public void encodedCommandShouldMatchConstructedCommand() throws IOException {
+		MICommand<MIInfo> options = new MICommand<>("-test-operation");
+		options.setOptions(new String[] { "-a a_test\\with slashes", "-b \"hello\"", "", "-c c_test" });
+		options.setParameters(new String[] { "-param1 param", "", "param2", "-param3" });
+		MICommand<MIInfo> unicode = new MICommand<>("-var-assign", new String[] { "var1", "\"gr\u00fc\u00df e\"" });
+
+		MICommandBuffer buffer = new MICommandBuffer(4);
+		for (MICommand<?> command : Arrays.asList(options, unicode, new MIStackListFrames("3", 0, 9),
+				new MIThreadInfo(), new RawCommand("info threads\n"))) {
+			buffer.reset();
+			buffer.append(42);
+			command.encode(buffer);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			buffer.writeTo(bytes);
+			assertArrayEquals((42 + command.constructCommand()).getBytes(MIStringHandler.CHARSET), bytes.toByteArray());
+		}
+	}
 }
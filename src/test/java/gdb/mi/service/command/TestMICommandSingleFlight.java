@@ -0,0 +1,38 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.MIStackListFrames;
+import gdb.mi.service.command.output.MIInfo;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that identical read-only commands in flight at the same time are sent to GDB once.
+ */
+public class TestMICommandSingleFlight {
+	@Rule
+	public final MIControlRule fGdb = new MIControlRule();
+
+	@Test
+	public void identicalQueriesShouldShareOneResult() throws IOException, InterruptedException {
+		MIControlRule.Channel gdb = fGdb.open();
+
+		gdb.control.queueCommand(1, (MICommand) new MIStackListFrames("3"));
+		gdb.control.queueCommand(2, (MICommand) new MIStackListFrames("3"));
+		gdb.waitForInput("1-stack-list-frames --thread 3\n");
+		gdb.reply("1^done,stack=[frame={level=\"0\",func=\"main\"}]\n");
+
+		MIInfo first = gdb.control.getResponse(1, 5000);
+		MIInfo second = gdb.control.getResponse(2, 5000);
+		assertTrue(first.isDone());
+		assertSame(first, second);
+		assertEquals(1, gdb.control.getCollapsedCommandCount());
+		assertEquals("1-stack-list-frames --thread 3\n", gdb.getInput());
+	}
+}
@@ -0,0 +1,59 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.MIStackInfoDepth;
+import gdb.mi.service.command.output.MIInfo;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that a command which GDB does not answer in time is cancelled, and that its
+ * late reply is discarded.
+ */
+public class TestMICommandTimeout {
+	@Rule
+	public final MIControlRule fGdb = new MIControlRule();
+
+	@Test
+	public void expiredCommandShouldReturnErrorAndDiscardLateReply() throws IOException {
+		MIControlRule.Channel gdb = fGdb.open();
+
+		gdb.control.queueCommand(1, (MICommand) new MIStackInfoDepth("1"));
+		MIInfo timedOut = gdb.control.getResponse(1, 50);
+		assertTrue("Expected an error response", timedOut.isError());
+		assertEquals("Timed out waiting for -stack-info-depth", timedOut.getErrorMsg());
+		assertFalse("Command should not be pending anymore", gdb.control.cancelCommand(1));
+
+		gdb.reply("1^done,depth=\"3\"\n");
+		gdb.control.queueCommand(2, (MICommand) new MIStackInfoDepth("1"));
+		gdb.reply("2^done,depth=\"3\"\n");
+
+		assertTrue(gdb.control.getResponse(2, 5000).isDone());
+		assertNull("Late reply should have been discarded", gdb.control.getResponse(1, 10));
+		assertEquals(0, gdb.control.getCancelledCommandCount());
+	}
+
+	@Test
+	public void unansweredCommandShouldBeForgottenOnceALaterOneIsAnswered() throws IOException, InterruptedException {
+		MIControlRule.Channel gdb = fGdb.open();
+
+		gdb.control.queueCommand(1, (MICommand) new MIStackInfoDepth("1"));
+		gdb.waitForInput("1-stack-info-depth --thread 1\n");
+		assertTrue(gdb.control.getResponse(1, 50).isError());
+		assertEquals(1, gdb.control.getCancelledCommandCount());
+
+		// GDB answers in order, so the reply to 1 will not come anymore
+		gdb.control.queueCommand(2, (MICommand) new MIStackInfoDepth("2"));
+		gdb.reply("2^done,depth=\"3\"\n");
+
+		assertTrue(gdb.control.getResponse(2, 5000).isDone());
+		assertEquals(0, gdb.control.getCancelledCommandCount());
+	}
+}
@@ -1,6 +1,7 @@
 package gdb.mi.service.command;
 
 import gdb.mi.service.command.commands.MIBreakInsert;
+import gdb.mi.service.command.commands.MIExecContinue;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -19,4 +20,11 @@ public class TestMIExecContinueCommand {
 				target.constructCommand());
 	}
 
+	@Test
+	public void threadShouldBePassedAsOption() {
+		MIExecContinue target = new MIExecContinue(7);
+
+		assertEquals("Wrong syntax for command", "-exec-continue --thread 7\n", target.constructCommand());
+	}
+
 }
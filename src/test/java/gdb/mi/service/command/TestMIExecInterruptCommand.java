@@ -1,6 +1,7 @@
 package gdb.mi.service.command;
 
 import gdb.mi.service.command.commands.MIBreakInsert;
+import gdb.mi.service.command.commands.MIExecInterrupt;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -19,4 +20,11 @@ public class TestMIExecInterruptCommand {
 				target.constructCommand());
 	}
 
+	@Test
+	public void threadShouldBePassedAsOption() {
+		MIExecInterrupt target = new MIExecInterrupt(7);
+
+		assertEquals("Wrong syntax for command", "-exec-interrupt --thread 7\n", target.constructCommand());
+	}
+
 }
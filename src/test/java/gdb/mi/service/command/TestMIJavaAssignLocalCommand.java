@@ -0,0 +1,20 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MIJavaAssignLocal;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies the command line of -java-assign-local, which names the local rather than
+ * giving its position in GDB's blocks.
+ */
+public class TestMIJavaAssignLocalCommand {
+
+	@Test
+	public void commandShouldNameTheLocal() {
+		MIJavaAssignLocal target = new MIJavaAssignLocal("3", 1, "count", "42");
+
+		assertEquals("Wrong syntax for command", "-java-assign-local 3 1 count 42\n", target.constructCommand());
+	}
+}
@@ -0,0 +1,47 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MIJavaFramesWithLocals;
+import gdb.mi.service.command.output.MIArg;
+import gdb.mi.service.command.output.MIJavaFramesWithLocalsInfo;
+import gdb.mi.service.command.output.MIOOBRecord;
+import gdb.mi.service.command.output.MIOutput;
+import gdb.mi.service.command.output.MIParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifies the command line of -java-frames-with-locals and the parsing of the
+ * result built by nativejdb.py.
+ */
+public class TestMIJavaFramesWithLocalsCommand {
+
+	@Test
+	public void commandShouldListThreadAndRange() {
+		MIJavaFramesWithLocals target = new MIJavaFramesWithLocals("3", 0, -1);
+
+		assertEquals("Wrong syntax for command", "-java-frames-with-locals 3 0 -1\n", target.constructCommand());
+	}
+
+	@Test
+	public void resultShouldCarryFramesAndLocals() {
+		String line = "^done,depth=\"5\",frames=[{level=\"0\",addr=\"0x401000\",func=\"Hello::main\","
+				+ "file=\"Hello.java\",fullname=\"/src/Hello.java\",line=\"7\","
+				+ "locals=[{name=\"i\",value=\"1\"},{name=\"s\",value=\"0x0\"}]},"
+				+ "{level=\"1\",addr=\"0x402000\",func=\"??\",locals=[]}]";
+		MIOutput out = new MIOutput(new MIParser().parseMIResultRecord(line), new MIOOBRecord[0]);
+		MIJavaFramesWithLocalsInfo info = new MIJavaFramesWithLocalsInfo(out);
+
+		assertEquals(5, info.getDepth());
+		assertEquals(2, info.getMIFrames().length);
+		assertEquals("Hello::main", info.getMIFrames()[0].getFunction());
+		assertEquals(7, info.getMIFrames()[0].getLine());
+		MIArg[] locals = info.getLocals(0);
+		assertEquals(2, locals.length);
+		assertEquals("s", locals[1].getName());
+		assertEquals("0x0", locals[1].getValue());
+		assertEquals(0, info.getLocals(1).length);
+		assertNull(info.getLocals(2));
+	}
+}
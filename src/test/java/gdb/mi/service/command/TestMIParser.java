@@ -0,0 +1,83 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MIConst;
+import gdb.mi.service.command.output.MIExecAsyncOutput;
+import gdb.mi.service.command.output.MIList;
+import gdb.mi.service.command.output.MILogStreamOutput;
+import gdb.mi.service.command.output.MIParser;
+import gdb.mi.service.command.output.MIResult;
+import gdb.mi.service.command.output.MIResultRecord;
+import gdb.mi.service.command.output.MITuple;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the records and value trees produced by the MI parser.
+ */
+public class TestMIParser {
+
+	private final MIParser parser = new MIParser();
+
+	@Test
+	public void resultRecordShouldBeParsedIntoValueTree() {
+		String line = "5^done,stack=[frame={level=\"0\",func=\"Hello.main(java.lang.String[] *)\"},frame={level=\"1\",func=\"??\"}]";
+		assertEquals(MIParser.RecordType.ResultRecord, parser.getRecordType(line));
+
+		MIResultRecord rr = parser.parseMIResultRecord(line);
+		assertEquals(5, rr.getToken());
+		assertEquals(MIResultRecord.DONE, rr.getResultClass());
+		assertEquals(1, rr.getMIResults().length);
+		MIList stack = (MIList) rr.getMIResults()[0].getMIValue();
+		assertEquals(2, stack.getMIResults().length);
+		MIResult[] frame = ((MITuple) stack.getMIResults()[1].getMIValue()).getMIResults();
+		assertEquals("func", frame[1].getVariable());
+		assertEquals("??", ((MIConst) frame[1].getMIValue()).getCString());
+	}
+
+	@Test
+	public void escapesShouldOnlyBeDecodedInResults() {
+		MIResultRecord rr = parser.parseMIResultRecord("12^error,msg=\"No symbol \\\"x\\\" in a\\\\b\"");
+		assertEquals(MIResultRecord.ERROR, rr.getResultClass());
+		assertEquals("No symbol \"x\" in a\\b", ((MIConst) rr.getMIResults()[0].getMIValue()).getCString());
+
+		MILogStreamOutput log = (MILogStreamOutput) parser.parseMIOOBRecord("&\"back\\\\slash\\n\"");
+		assertEquals("back\\\\slash\\n", log.getCString());
+	}
+
+	@Test
+	public void asyncRecordShouldKeepClassAndResults() {
+		MIExecAsyncOutput stopped = (MIExecAsyncOutput) parser.parseMIOOBRecord("8*stopped,reason=\"exited-normally\"");
+		assertEquals(8, stopped.getToken());
+		assertEquals("stopped", stopped.getAsyncClass());
+		assertEquals("reason", stopped.getMIResults()[0].getVariable());
+
+		MIExecAsyncOutput bare = (MIExecAsyncOutput) parser.parseMIOOBRecord("*stopped");
+		assertEquals("stopped", bare.getAsyncClass());
+		assertEquals(1, bare.getMIResults().length);
+		assertEquals("", bare.getMIResults()[0].getVariable());
+	}
+
+	@Test
+	public void lazyTreeShouldMatchEagerTree() {
+		String line = "7^done,threads=[{id=\"1\",target-id=\"Thread 0x7ffff7d8a740 (LWP 123)\",frame={level=\"0\",func=\"main\",args=[]},state=\"stopped\"},"
+				+ "{id=\"2\",name=\"a \\\"quoted\\\" [name]\",frame={level=\"0\",func=\"{run}\"}}],current-thread-id=\"1\"";
+		MIParser lazy = new MIParser();
+		lazy.setLazy(true);
+		MIResultRecord rr = lazy.parseMIResultRecord(line);
+
+		MIList threads = (MIList) rr.getField("threads");
+		MITuple second = (MITuple) threads.getMIValues()[1];
+		assertEquals("a \"quoted\" [name]", ((MIConst) second.getField("name")).getCString());
+		assertEquals("{run}", ((MIConst) ((MITuple) second.getField("frame")).getField("func")).getCString());
+		assertEquals("1", ((MIConst) rr.getField("current-thread-id")).getCString());
+		assertEquals(parser.parseMIResultRecord(line).toString(), rr.toString());
+	}
+
+	@Test
+	public void promptAndGarbageShouldBeRecognized() {
+		assertEquals(MIParser.RecordType.PrimaryPrompt, parser.getRecordType("(gdb) "));
+		assertTrue(parser.parseMIOOBRecord("garbage line").toString().contains("garbage line"));
+	}
+}
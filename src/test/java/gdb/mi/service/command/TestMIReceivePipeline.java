@@ -0,0 +1,60 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MINotifyAsyncOutput;
+import gdb.mi.service.command.output.MIOOBRecord;
+import gdb.mi.service.command.output.MIOutput;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that a slow event listener does not stop GDB's output from being read,
+ * and that records are still dispatched in order.
+ */
+public class TestMIReceivePipeline {
+	@Rule
+	public final MIControlRule fGdb = new MIControlRule();
+
+	@Test
+	public void slowListenerShouldNotBlockReader() throws IOException, InterruptedException {
+		MIControlRule.Channel gdb = fGdb.open();
+		AbstractMIControl control = gdb.control;
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> ids = Collections.synchronizedList(new ArrayList<>());
+		control.addEventListener(event -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+			}
+			MIOOBRecord[] oobs = ((MIOutput) event).getMIOOBRecords();
+			if (oobs.length == 1 && oobs[0] instanceof MINotifyAsyncOutput) {
+				ids.add(((MINotifyAsyncOutput) oobs[0]).getMIResults()[0].getMIValue().toString());
+			}
+		});
+		// Far more than the pipe holds, writing would block if the listener held up the reader
+		int count = 300;
+		for (int i = 0; i < count; i++) {
+			gdb.reply("=thread-created,id=\"" + i + "\",group-id=\"i1\"\n");
+		}
+		assertTrue(control.getParseQueueMaxDepth() + control.getDispatchQueueMaxDepth() > 0);
+
+		release.countDown();
+		for (int i = 0; i < 500 && ids.size() < count; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, ids.size());
+		for (int i = 0; i < count; i++) {
+			assertEquals(Integer.toString(i), ids.get(i));
+		}
+		assertEquals(0, control.getDispatchQueueDepth());
+	}
+}
@@ -0,0 +1,78 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MIConst;
+import gdb.mi.service.command.output.MIParser;
+import gdb.mi.service.command.output.MIRecordReader;
+import gdb.mi.service.command.output.MIResultRecord;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifies that MI records are split and parsed directly from GDB's output bytes.
+ */
+public class TestMIRecordReader {
+
+	@Test
+	public void linesShouldBeSplitOnAllTerminators() throws IOException {
+		String output = "=thread-created,id=\"1\"\r\n~\"text\"\r(gdb) \n\n1^done,value=\"a longer value than the buffer\"";
+		// A tiny buffer forces compaction and growth while a line is still arriving
+		MIRecordReader reader = new MIRecordReader(new ByteArrayInputStream(output.getBytes()), 4);
+
+		assertEquals("=thread-created,id=\"1\"", reader.readLine().toString());
+		assertEquals("~\"text\"", reader.readLine().toString());
+		assertEquals("(gdb) ", reader.readLine().toString());
+		assertEquals("", reader.readLine().toString());
+
+		MIRecordReader.Line line = reader.readLine();
+		MIResultRecord rr = new MIParser().parseMIResultRecord(line);
+		assertEquals(1, rr.getToken());
+		assertEquals("a longer value than the buffer", ((MIConst) rr.getMIResults()[0].getMIValue()).getCString());
+		assertNull(reader.readLine());
+	}
+
+	@Test
+	public void lazyRecordShouldOutliveReadBuffer() throws IOException {
+		String output = "1^done,value=\"first\"\n2^done,value=\"other\"\n";
+		MIRecordReader reader = new MIRecordReader(new ByteArrayInputStream(output.getBytes()), 16);
+		MIParser parser = new MIParser();
+		parser.setLazy(true);
+
+		MIResultRecord first = parser.parseMIResultRecord(reader.readLine());
+		parser.parseMIResultRecord(reader.readLine());
+		assertEquals("first", ((MIConst) first.getField("value")).getCString());
+	}
+
+	@Test
+	public void copyShouldOutliveReadBufferAndBeReused() throws IOException {
+		String output = "1^done,value=\"first\"\n2^done,value=\"a second and longer value\"\n";
+		MIRecordReader reader = new MIRecordReader(new ByteArrayInputStream(output.getBytes()), 16);
+		MIRecordReader.Line copy = new MIRecordReader.Line();
+
+		reader.readLine().copyTo(copy);
+		MIRecordReader.Line second = reader.readLine();
+		assertEquals("1^done,value=\"first\"", copy.toString());
+
+		second.copyTo(copy);
+		MIResultRecord rr = new MIParser().parseMIResultRecord(copy);
+		assertEquals(2, rr.getToken());
+		assertEquals("a second and longer value", ((MIConst) rr.getMIResults()[0].getMIValue()).getCString());
+	}
+
+	@Test
+	public void nonAsciiLineShouldBeDecodedAsUtf8() throws IOException {
+		byte[] output = "~\"caf\u00e9\"\n".getBytes(StandardCharsets.UTF_8);
+		MIRecordReader reader = new MIRecordReader(new ByteArrayInputStream(output));
+		MIRecordReader.Line line = reader.readLine();
+		assertEquals("~\"caf\u00e9\"", line.toString());
+
+		MIRecordReader.Line copy = new MIRecordReader.Line();
+		line.copyTo(copy);
+		assertEquals('\u00e9', copy.charAt(5));
+	}
+}
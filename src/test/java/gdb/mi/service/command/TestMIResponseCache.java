@@ -0,0 +1,91 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.MIStackInfoDepth;
+import gdb.mi.service.command.commands.MIVarEvaluateExpression;
+import gdb.mi.service.command.commands.MIVarUpdate;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that read-only command results are reused until the stop epoch advances.
+ */
+public class TestMIResponseCache {
+	@Rule
+	public final MIControlRule fGdb = new MIControlRule();
+
+	@Test
+	public void queryShouldBeAnsweredFromCacheUntilTargetResumes() throws IOException, InterruptedException {
+		MIControlRule.Channel gdb = fGdb.open();
+		AbstractMIControl control = gdb.control;
+
+		control.queueCommand(1, (MICommand) new MIStackInfoDepth("2"));
+		gdb.waitForInput("1-stack-info-depth --thread 2\n");
+		gdb.reply("1^done,depth=\"12\"\n");
+		assertTrue(control.getResponse(1, 5000).isDone());
+
+		control.queueCommand(2, (MICommand) new MIStackInfoDepth("2"));
+		assertTrue(control.getResponse(2, 5000).isDone());
+		assertEquals(1, control.getCacheHitCount());
+
+		control.advanceStopEpoch(false);
+		control.queueCommand(3, (MICommand) new MIStackInfoDepth("2"));
+		gdb.waitForInput("1-stack-info-depth --thread 2\n3-stack-info-depth --thread 2\n");
+		gdb.reply("3^done,depth=\"4\"\n");
+		assertTrue(control.getResponse(3, 5000).isDone());
+		assertEquals(1, control.getCacheHitCount());
+	}
+
+	@Test
+	public void varObjUpdateShouldOnlyDropVarObjResults() throws IOException, InterruptedException {
+		MIControlRule.Channel gdb = fGdb.open();
+		AbstractMIControl control = gdb.control;
+
+		control.queueCommand(1, (MICommand) new MIStackInfoDepth("2"));
+		control.queueCommand(2, (MICommand) new MIVarEvaluateExpression("var1"));
+		gdb.waitForInput("1-stack-info-depth --thread 2\n2-var-evaluate-expression var1\n");
+		gdb.reply("1^done,depth=\"12\"\n2^done,value=\"1\"\n");
+		assertTrue(control.getResponse(1, 5000).isDone());
+		assertTrue(control.getResponse(2, 5000).isDone());
+
+		control.queueCommand(3, (MICommand) new MIVarUpdate("*"));
+		gdb.waitForInput("1-stack-info-depth --thread 2\n2-var-evaluate-expression var1\n3-var-update 1 *\n");
+		gdb.reply("3^done,changelist=[{name=\"var1\",value=\"2\",in_scope=\"true\",type_changed=\"false\"}]\n");
+		assertTrue(control.getResponse(3, 5000).isDone());
+
+		control.queueCommand(4, (MICommand) new MIStackInfoDepth("2"));
+		assertTrue(control.getResponse(4, 5000).isDone());
+		assertEquals(1, control.getCacheHitCount());
+
+		control.queueCommand(5, (MICommand) new MIVarEvaluateExpression("var1"));
+		gdb.waitForInput("1-stack-info-depth --thread 2\n2-var-evaluate-expression var1\n3-var-update 1 *\n"
+				+ "5-var-evaluate-expression var1\n");
+		gdb.reply("5^done,value=\"2\"\n");
+		assertTrue(control.getResponse(5, 5000).isDone());
+		assertEquals(1, control.getCacheHitCount());
+	}
+
+	@Test
+	public void nothingShouldBeCachedWhileAThreadMayRun() throws IOException, InterruptedException {
+		MIControlRule.Channel gdb = fGdb.open();
+		AbstractMIControl control = gdb.control;
+
+		// A thread stopped in non-stop mode while others still run
+		control.advanceStopEpoch(true);
+		control.queueCommand(1, (MICommand) new MIStackInfoDepth("2"));
+		gdb.waitForInput("1-stack-info-depth --thread 2\n");
+		gdb.reply("1^done,depth=\"12\"\n");
+		assertTrue(control.getResponse(1, 5000).isDone());
+
+		control.queueCommand(2, (MICommand) new MIStackInfoDepth("2"));
+		gdb.waitForInput("1-stack-info-depth --thread 2\n2-stack-info-depth --thread 2\n");
+		gdb.reply("2^done,depth=\"12\"\n");
+		assertTrue(control.getResponse(2, 5000).isDone());
+		assertEquals(0, control.getCacheHitCount());
+	}
+}
@@ -0,0 +1,20 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.output.MIStackListFramesInfo;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies that a page of frames is listed with its low and high levels.
+ */
+public class TestMIStackListFramesCommand {
+
+	@Test
+	public void rangeShouldFollowThread() {
+		MICommand<MIStackListFramesInfo> target = new CommandFactory().createMIStackListFrames("4", 32, 63);
+
+		assertEquals("Wrong syntax for command", "-stack-list-frames --thread 4 32 63\n", target.constructCommand());
+	}
+}
@@ -0,0 +1,37 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.MIFileListExecSourceFiles;
+import gdb.mi.service.command.commands.MIStackInfoDepth;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that static commands are sent to the GDB without inferior, and other
+ * commands to the one attached to the inferior.
+ */
+public class TestMIStaticControl {
+	@Rule
+	public final MIControlRule fGdb = new MIControlRule();
+
+	@Test
+	public void staticCommandShouldBeRoutedToStaticGDB() throws IOException, InterruptedException {
+		MIControlRule.Channel live = fGdb.open();
+		MIControlRule.Channel staticGdb = fGdb.open();
+		live.control.setStaticControl(staticGdb.control);
+
+		live.control.queueCommand(1, (MICommand) new MIFileListExecSourceFiles());
+		live.control.queueCommand(2, (MICommand) new MIStackInfoDepth("1"));
+		staticGdb.waitForInput("1-file-list-exec-source-files\n");
+		live.waitForInput("2-stack-info-depth --thread 1\n");
+
+		staticGdb.reply("1^done,files=[]\n");
+		live.reply("2^done,depth=\"1\"\n");
+		assertTrue(live.control.getResponse(1, 5000).isDone());
+		assertTrue(live.control.getResponse(2, 5000).isDone());
+	}
+}
@@ -0,0 +1,36 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.MIGDBVersion;
+import gdb.mi.service.command.output.MIGDBVersionInfo;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies that the console output preceding a result is handed to its command,
+ * without the async records received meanwhile.
+ */
+public class TestMIStreamRecords {
+	@Rule
+	public final MIControlRule fGdb = new MIControlRule();
+
+	@Test
+	public void resultShouldOnlyCarryStreamRecords() throws IOException, InterruptedException {
+		MIControlRule.Channel gdb = fGdb.open();
+
+		gdb.control.queueCommand(1, (MICommand) new MIGDBVersion());
+		gdb.waitForInput("1-gdb-version\n");
+		gdb.reply("~\"GNU gdb (GDB) 12.1\\n\"\n"
+				+ "=thread-group-added,id=\"i1\"\n"
+				+ "~\"Copyright (C) 2022\\n\"\n"
+				+ "1^done\n");
+
+		MIGDBVersionInfo info = (MIGDBVersionInfo) gdb.control.getResponse(1, 5000);
+		assertEquals(2, info.getMIOutput().getMIOOBRecords().length);
+		assertEquals("GNU gdb (GDB) 12.1\nCopyright (C) 2022\n", info.getFullOutput());
+	}
+}
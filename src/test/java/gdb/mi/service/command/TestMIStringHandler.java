@@ -0,0 +1,40 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MIStringHandler;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verifies that C strings without escapes are returned as they are and that escape
+ * notations are still decoded with the reused buffers.
+ */
+public class TestMIStringHandler {
+
+	@Test
+	public void plainStringShouldBeReturnedAsIs() {
+		String plain = "Hello.main(java.lang.String[] *) /tmp/src/Hello.java 42";
+
+		assertSame(plain, MIStringHandler.translateCString(plain, true));
+		assertSame(plain, MIStringHandler.translateCString(plain, false));
+		assertSame(plain, MIStringHandler.parseString(plain));
+	}
+
+	@Test
+	public void escapesShouldBeDecoded() {
+		assertEquals("a\tb\"c", MIStringHandler.parseString("a\\tb\\\"c"));
+		assertEquals("A\u00e9\u20ac", MIStringHandler.parseString("\\101\\xe9\\u20ac"));
+		assertEquals("bad \\q and \\x", MIStringHandler.parseString("bad \\q and \\x"));
+		// The buffers of the previous calls must not leak into the next result
+		assertEquals("\n", MIStringHandler.parseString("\\n"));
+	}
+
+	@Test
+	public void nonPrintableStringShouldStillBeTranslated() {
+		// UTF-8 bytes of an e with acute accent, printed by GDB as octal escapes
+		assertEquals("caf\u00e9", MIStringHandler.translateCString("caf\\303\\251", true));
+		assertEquals("tab\\there", MIStringHandler.translateCString("tab\\there", true));
+		assertEquals("a\\001", MIStringHandler.translateCString("a\u0001", true));
+	}
+}
@@ -0,0 +1,102 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.commands.MIFileListExecSourceFiles;
+import gdb.mi.service.command.commands.MISymbolInfoFunctions;
+import gdb.mi.service.command.output.MIInfo;
+import gdb.mi.service.command.output.MIParser;
+import gdb.mi.service.command.output.MIResultRecord;
+import gdb.mi.service.command.output.MISymbolVisitor;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that symbol listings are streamed to a visitor entry by entry, without
+ * being added to the result record.
+ */
+public class TestMISymbolVisitor {
+	@Rule
+	public final MIControlRule fGdb = new MIControlRule();
+
+	private static final String SYMBOLS = "^done,symbols={debug=["
+			+ "{filename=\"Hello.java\",fullname=\"/src/Hello.java\",symbols=["
+			+ "{line=\"3\",name=\"Hello::main\",type=\"void (java.lang.String[] *)\",description=\"void Hello::main(java.lang.String[] *);\"},"
+			+ "{line=\"9\",name=\"Hello::greet\",type=\"void (void)\",description=\"void Hello::greet(void);\"}]},"
+			+ "{filename=\"Empty.java\",fullname=\"/src/Empty.java\",symbols=[]}],"
+			+ "nondebug=[{address=\"0x0000000000401000\",name=\"_init\"}]}";
+
+	@Test
+	public void symbolsShouldBeStreamedPerFile() {
+		List<String> entries = new ArrayList<>();
+		MIResultRecord rr = new MIParser().parseMIResultRecord(SYMBOLS, new RecordingVisitor(entries));
+
+		assertEquals(MIResultRecord.DONE, rr.getResultClass());
+		assertEquals(0, rr.getMIResults().length);
+		assertEquals("[file Hello.java /src/Hello.java, symbol Hello::main void (java.lang.String[] *) 3, "
+				+ "symbol Hello::greet void (void) 9, file Empty.java /src/Empty.java]", entries.toString());
+	}
+
+	@Test
+	public void sourceFilesShouldBeStreamed() {
+		List<String> entries = new ArrayList<>();
+		new MIParser().parseMIResultRecord("^done,files=[{file=\"A.java\",fullname=\"/src/A.java\",debug-fully-read=\"false\"},"
+				+ "{file=\"B\\\\C.java\",fullname=\"/src/B\\\\C.java\",debug-fully-read=\"true\"}]", new RecordingVisitor(entries));
+
+		assertEquals("[file A.java /src/A.java, file B\\C.java /src/B\\C.java]", entries.toString());
+	}
+
+	@Test
+	public void variablesShouldBeStreamedPerFile() {
+		List<String> entries = new ArrayList<>();
+		new MIParser().parseMIResultRecord("^done,symbols={debug=[{filename=\"Hello.java\",fullname=\"/src/Hello.java\",symbols=["
+				+ "{line=\"2\",name=\"Hello::count\",type=\"int\",description=\"static int Hello::count;\"}]}]}",
+				new RecordingVisitor(entries));
+
+		assertEquals("[file Hello.java /src/Hello.java, symbol Hello::count int 2]", entries.toString());
+	}
+
+	@Test
+	public void controlShouldStreamResultOfCommandWithVisitor() throws IOException, InterruptedException {
+		MIControlRule.Channel gdb = fGdb.open();
+
+		List<String> entries = new ArrayList<>();
+		MICommand command = new MISymbolInfoFunctions();
+		command.setResultVisitor(new RecordingVisitor(entries));
+		gdb.control.queueCommand(1, command);
+		gdb.control.queueCommand(2, (MICommand) new MIFileListExecSourceFiles());
+		gdb.waitForInput("1-symbol-info-functions\n2-file-list-exec-source-files\n");
+
+		gdb.reply("1" + SYMBOLS + "\n2^done,files=[{file=\"A.java\",fullname=\"/src/A.java\"}]\n");
+		MIInfo streamed = gdb.control.getResponse(1, 5000);
+		MIInfo built = gdb.control.getResponse(2, 5000);
+
+		assertTrue(streamed.isDone());
+		assertEquals(4, entries.size());
+		assertEquals(1, built.getMIOutput().getMIResultRecord().getMIResults().length);
+	}
+
+	private static class RecordingVisitor extends MISymbolVisitor {
+		private final List<String> fEntries;
+
+		RecordingVisitor(List<String> entries) {
+			fEntries = entries;
+		}
+
+		@Override
+		protected void visitFile(String filename, String fullname) {
+			fEntries.add("file " + filename + " " + fullname);
+		}
+
+		@Override
+		protected void visitSymbol(String name, String type, String description, int line) {
+			fEntries.add("symbol " + name + " " + type + " " + line);
+		}
+	}
+}
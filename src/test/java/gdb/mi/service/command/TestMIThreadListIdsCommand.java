@@ -0,0 +1,42 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MIThreadListIds;
+import gdb.mi.service.command.output.MIOOBRecord;
+import gdb.mi.service.command.output.MIOutput;
+import gdb.mi.service.command.output.MIParser;
+import gdb.mi.service.command.output.MIThreadListIdsInfo;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the command line of -thread-list-ids and that its result seeds the
+ * thread registry without any details.
+ */
+public class TestMIThreadListIdsCommand {
+
+	@Test
+	public void commandShouldHaveNoParameters() {
+		MIThreadListIds target = new MIThreadListIds();
+
+		assertEquals("Wrong syntax for command", "-thread-list-ids\n", target.constructCommand());
+	}
+
+	@Test
+	public void idsShouldSeedRegistry() {
+		String line = "^done,thread-ids={thread-id=\"12\",thread-id=\"3\",thread-id=\"1\"},"
+				+ "current-thread-id=\"1\",number-of-threads=\"3\"";
+		MIOutput out = new MIOutput(new MIParser().parseMIResultRecord(line), new MIOOBRecord[0]);
+		MIThreadRegistry registry = new MIThreadRegistry();
+
+		registry.seed(new MIThreadListIdsInfo(out).getStrThreadIds());
+
+		assertTrue(registry.isSeeded());
+		assertArrayEquals(new int[] { 1, 3, 12 }, registry.getThreadIds());
+		assertFalse(registry.get("3").hasState());
+		assertFalse(registry.get("3").hasDetails());
+	}
+}
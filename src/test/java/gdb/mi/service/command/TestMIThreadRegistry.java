@@ -0,0 +1,113 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.output.MIAsyncRecord;
+import gdb.mi.service.command.output.MIOOBRecord;
+import gdb.mi.service.command.output.MIOutput;
+import gdb.mi.service.command.output.MIParser;
+import gdb.mi.service.command.output.MIThreadInfoInfo;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that the thread registry follows GDB's thread notifications.
+ */
+public class TestMIThreadRegistry {
+	private final MIParser fParser = new MIParser();
+
+	@Test
+	public void createdAndExitedNotificationsShouldTrackThreads() {
+		MIThreadRegistry registry = new MIThreadRegistry();
+		assertTrue(registry.notify(record("=thread-created,id=\"2\",group-id=\"i1\"")));
+		assertTrue(registry.notify(record("=thread-created,id=\"10\",group-id=\"i1\"")));
+		assertTrue(registry.notify(record("=thread-created,id=\"1\",group-id=\"i1\"")));
+
+		assertArrayEquals(new int[] { 1, 2, 10 }, registry.getThreadIds());
+		assertTrue(registry.get("2").isRunning());
+		assertFalse(registry.get("2").hasDetails());
+
+		registry.notify(record("=thread-exited,id=\"2\",group-id=\"i1\""));
+		assertNull(registry.get("2"));
+		assertEquals(2, registry.size());
+
+		registry.notify(record("=thread-group-exited,id=\"i1\",exit-code=\"0\""));
+		assertEquals(0, registry.size());
+	}
+
+	@Test
+	public void execRecordsShouldUpdateState() {
+		MIThreadRegistry registry = new MIThreadRegistry();
+		registry.notify(record("=thread-created,id=\"1\",group-id=\"i1\""));
+		registry.notify(record("=thread-created,id=\"2\",group-id=\"i1\""));
+
+		registry.notify(record("*stopped,reason=\"breakpoint-hit\",bkptno=\"1\",thread-id=\"2\",stopped-threads=[\"2\"]"));
+		assertTrue(registry.get("1").isRunning());
+		assertFalse(registry.get("2").isRunning());
+
+		registry.notify(record("*stopped,reason=\"signal-received\",thread-id=\"1\",stopped-threads=\"all\""));
+		assertFalse(registry.get("1").isRunning());
+
+		registry.notify(record("*running,thread-id=\"2\""));
+		assertTrue(registry.get("2").isRunning());
+		assertFalse(registry.get("1").isRunning());
+
+		registry.notify(record("*running,thread-id=\"all\""));
+		assertTrue(registry.get("1").isRunning());
+	}
+
+	@Test
+	public void allStoppedShouldNeedEveryThreadStopped() {
+		MIThreadRegistry registry = new MIThreadRegistry();
+		registry.notify(record("=thread-created,id=\"1\",group-id=\"i1\""));
+		registry.notify(record("=thread-created,id=\"2\",group-id=\"i1\""));
+		// Threads created before the notifications were followed may be running
+		registry.notify(record("*stopped,reason=\"breakpoint-hit\",thread-id=\"2\",stopped-threads=[\"1\",\"2\"]"));
+		assertFalse(registry.isAllStopped());
+
+		registry.notify(record("*stopped,reason=\"signal-received\",thread-id=\"1\",stopped-threads=\"all\""));
+		assertTrue(registry.isAllStopped());
+
+		// Non-stop mode, one thread resumed and stopped again
+		registry.notify(record("*running,thread-id=\"2\""));
+		assertFalse(registry.isAllStopped());
+		registry.notify(record("*stopped,reason=\"end-stepping-range\",thread-id=\"2\",stopped-threads=[\"2\"]"));
+		assertFalse(registry.isAllStopped());
+
+		registry.seed(new String[] { "1", "2" });
+		assertTrue(registry.isAllStopped());
+	}
+
+	@Test
+	public void threadInfoShouldFillInDetails() {
+		MIThreadRegistry registry = new MIThreadRegistry();
+		registry.notify(record("=thread-created,id=\"1\",group-id=\"i1\""));
+		MIOutput output = new MIOutput(fParser.parseMIResultRecord("^done,threads=[{id=\"1\","
+				+ "target-id=\"Thread 0x7ffff7d89740 (LWP 4242)\",name=\"helloworld\",frame={level=\"0\","
+				+ "addr=\"0x0000000000402f30\",func=\"main\",args=[]},state=\"stopped\",core=\"3\"}],"
+				+ "current-thread-id=\"1\""), new MIOOBRecord[0]);
+
+		assertFalse(registry.isSeeded());
+		registry.seed(new MIThreadInfoInfo(output).getThreadList());
+
+		assertTrue(registry.isSeeded());
+		assertEquals("4242", registry.get("1").getOsId());
+		assertEquals("helloworld", registry.get("1").getName());
+		assertFalse(registry.get("1").isRunning());
+	}
+
+	@Test
+	public void otherNotificationsShouldBeIgnored() {
+		MIThreadRegistry registry = new MIThreadRegistry();
+
+		assertFalse(registry.notify(record("=breakpoint-deleted,id=\"3\"")));
+		assertEquals(0, registry.size());
+	}
+
+	private MIAsyncRecord record(String line) {
+		return (MIAsyncRecord) fParser.parseMIOOBRecord(line);
+	}
+}
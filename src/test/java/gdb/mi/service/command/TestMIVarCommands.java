@@ -0,0 +1,51 @@
+package gdb.mi.service.command;
+
+import gdb.mi.service.command.commands.MICommand;
+import gdb.mi.service.command.output.MIOOBRecord;
+import gdb.mi.service.command.output.MIOutput;
+import gdb.mi.service.command.output.MIParser;
+import gdb.mi.service.command.output.MIVarChange;
+import gdb.mi.service.command.output.MIVarCreateInfo;
+import gdb.mi.service.command.output.MIVarUpdateInfo;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the command lines of the variable objects backing the locals of a frame
+ * and that one update of all of them reports only the changed ones.
+ */
+public class TestMIVarCommands {
+
+	@Test
+	public void createShouldSelectThreadAndFrame() {
+		MICommand<MIVarCreateInfo> target = new CommandFactory().createMIVarCreate("4", 2, "-", "count");
+
+		assertEquals("Wrong syntax for command", "-var-create --thread 4 --frame 2 - * count\n", target.constructCommand());
+	}
+
+	@Test
+	public void updateShouldListAllValues() {
+		MICommand<MIVarUpdateInfo> target = new CommandFactory().createMIVarUpdate("*");
+
+		assertEquals("Wrong syntax for command", "-var-update 1 *\n", target.constructCommand());
+	}
+
+	@Test
+	public void updateShouldReportChangesAndScope() {
+		String line = "^done,changelist=[{name=\"var1\",value=\"12\",in_scope=\"true\",type_changed=\"false\",has_more=\"0\"},"
+				+ "{name=\"var3\",in_scope=\"false\",type_changed=\"false\",has_more=\"0\"}]";
+		MIOutput out = new MIOutput(new MIParser().parseMIResultRecord(line), new MIOOBRecord[0]);
+
+		MIVarChange[] changes = new MIVarUpdateInfo(out).getMIVarChanges();
+
+		assertEquals(2, changes.length);
+		assertEquals("var1", changes[0].getVarName());
+		assertEquals("12", changes[0].getValue());
+		assertTrue(changes[0].isInScope());
+		assertEquals("var3", changes[1].getVarName());
+		assertFalse(changes[1].isInScope());
+	}
+}
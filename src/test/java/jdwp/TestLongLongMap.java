@@ -0,0 +1,92 @@
+package jdwp;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies the open addressing map of unboxed longs, in particular that the entries
+ * moved back on removal stay reachable.
+ */
+public class TestLongLongMap {
+
+    @Test
+    public void valuesShouldBePutReplacedAndRemoved() {
+        LongLongMap map = new LongLongMap();
+        map.put(7, 70);
+        map.put(-3, 30);
+        map.put(7, 71);
+
+        assertEquals(71, map.get(7));
+        assertEquals(30, map.get(-3));
+        assertEquals(0, map.get(8));
+        assertEquals(2, map.size());
+
+        assertEquals(71, map.remove(7));
+        assertEquals(0, map.remove(7));
+        assertEquals(0, map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void removingZeroShouldChangeNothing() {
+        LongLongMap map = new LongLongMap(4);
+        map.put(1, 10);
+        map.put(2, 20);
+
+        assertEquals(0, map.remove(0));
+        assertEquals(2, map.size());
+        assertEquals(10, map.get(1));
+        assertEquals(20, map.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroShouldNotBeAValue() {
+        new LongLongMap().put(1, 0);
+    }
+
+    @Test
+    public void removalShouldKeepCollidingEntriesReachable() {
+        // A nearly full small table, so that probe sequences overlap and wrap around
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            LongLongMap map = new LongLongMap(16);
+            Map<Long, Long> expected = new HashMap<>();
+            for (int i = 0; i < 11; i++) {
+                long key = 1 + random.nextInt(64);
+                map.put(key, key * 10);
+                expected.put(key, key * 10);
+            }
+            for (int i = 0; i < 6; i++) {
+                long key = 1 + random.nextInt(64);
+                Long value = expected.remove(key);
+                assertEquals(value == null ? 0 : value, map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+            for (long key = 1; key <= 64; key++) {
+                Long value = expected.get(key);
+                assertEquals(value == null ? 0 : value, map.get(key));
+            }
+        }
+    }
+
+    @Test
+    public void growingShouldKeepAllEntries() {
+        LongLongMap map = new LongLongMap(2);
+        for (long key = 1; key <= 10000; key++) {
+            map.put(key * 4096, key);
+        }
+        assertEquals(10000, map.size());
+        for (long key = 1; key <= 10000; key++) {
+            assertEquals(key, map.get(key * 4096));
+        }
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(4096));
+    }
+}
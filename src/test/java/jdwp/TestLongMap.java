@@ -0,0 +1,86 @@
+package jdwp;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifies the open addressing map from unboxed longs to objects, in particular that
+ * the entries moved back on removal stay reachable.
+ */
+public class TestLongMap {
+
+    @Test
+    public void valuesShouldBePutReplacedAndRemoved() {
+        LongMap<String> map = new LongMap<>();
+        map.put(7, "a");
+        map.put(-3, "b");
+        map.put(7, "c");
+
+        assertEquals("c", map.get(7));
+        assertEquals("b", map.get(-3));
+        assertNull(map.get(8));
+        assertEquals(2, map.size());
+
+        assertEquals("c", map.remove(7));
+        assertNull(map.remove(7));
+        assertNull(map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void removingZeroShouldChangeNothing() {
+        LongMap<String> map = new LongMap<>(4);
+        map.put(1, "a");
+        map.put(2, "b");
+
+        assertNull(map.remove(0));
+        assertEquals(2, map.size());
+        assertEquals("a", map.get(1));
+        assertEquals("b", map.get(2));
+    }
+
+    @Test
+    public void removalShouldKeepCollidingEntriesReachable() {
+        // A nearly full small table, so that probe sequences overlap and wrap around
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            LongMap<Long> map = new LongMap<>(16);
+            Map<Long, Long> expected = new HashMap<>();
+            for (int i = 0; i < 11; i++) {
+                long key = 1 + random.nextInt(64);
+                map.put(key, key);
+                expected.put(key, key);
+            }
+            for (int i = 0; i < 6; i++) {
+                long key = 1 + random.nextInt(64);
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+            for (long key = 1; key <= 64; key++) {
+                assertEquals(expected.get(key), map.get(key));
+            }
+        }
+    }
+
+    @Test
+    public void growingShouldKeepAllEntries() {
+        LongMap<Long> map = new LongMap<>(2);
+        for (long key = 1; key <= 10000; key++) {
+            map.put(key * 4096, key);
+        }
+        assertEquals(10000, map.size());
+        for (long key = 1; key <= 10000; key++) {
+            assertEquals(Long.valueOf(key), map.get(key * 4096));
+        }
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(4096));
+    }
+}
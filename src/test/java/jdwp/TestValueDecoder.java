@@ -0,0 +1,67 @@
+package jdwp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that values are read from the formats GDB prints them in.
+ */
+public class TestValueDecoder {
+
+    @Test
+    public void integersShouldIgnoreWhatFollows() {
+        assertEquals(42, ValueDecoder.parseInteger("42"));
+        assertEquals(-3, ValueDecoder.parseInteger(" -3"));
+        assertEquals(65, ValueDecoder.parseInteger("65 'A'"));
+        assertEquals(Long.MIN_VALUE, ValueDecoder.parseInteger("-9223372036854775808"));
+        assertEquals(-1, ValueDecoder.parseInteger("0xffffffffffffffff"));
+    }
+
+    @Test
+    public void addressesShouldSkipCastAndSymbol() {
+        assertEquals(0x7ffff7a0c000L, ValueDecoder.parseInteger("0x7ffff7a0c000 <main>"));
+        assertEquals(0x10, ValueDecoder.parseInteger("(java.lang.String *) 0x10 \"abc\""));
+        assertEquals(0, ValueDecoder.parseInteger("0x0"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void structShouldNotBeAnInteger() {
+        ValueDecoder.parseInteger("{hub = 0x1, value = 0x2}");
+    }
+
+    @Test
+    public void charsShouldUseTheLeadingCode() {
+        assertEquals('A', ValueDecoder.parseChar("65 'A'"));
+        assertEquals('\n', ValueDecoder.parseChar("10 '\\n'"));
+        assertEquals('\u20ac', ValueDecoder.parseChar("8364 u'\\342\\202\\254'"));
+        assertEquals('x', ValueDecoder.parseChar("'x'"));
+        assertEquals('\t', ValueDecoder.parseChar("'\\t'"));
+    }
+
+    @Test
+    public void booleansShouldReadWordsAndNumbers() {
+        assertTrue(ValueDecoder.parseBoolean("true"));
+        assertFalse(ValueDecoder.parseBoolean("false"));
+        assertTrue(ValueDecoder.parseBoolean("1"));
+        assertFalse(ValueDecoder.parseBoolean("0"));
+    }
+
+    @Test
+    public void doublesShouldReadInfinityAndNaN() {
+        assertEquals(3.1400001, ValueDecoder.parseDouble("3.1400001"), 0);
+        assertEquals(-1.5e-10, ValueDecoder.parseDouble("-1.5e-10"), 0);
+        assertEquals(Double.POSITIVE_INFINITY, ValueDecoder.parseDouble("inf"), 0);
+        assertEquals(Double.NEGATIVE_INFINITY, ValueDecoder.parseDouble("-inf"), 0);
+        assertTrue(Double.isNaN(ValueDecoder.parseDouble("-nan(0x8000000000000)")));
+    }
+
+    @Test
+    public void objectTagShouldFollowSignature() {
+        assertEquals(JDWP.Tag.STRING, ValueDecoder.objectTag(JDWP.Tag.OBJECT, "Ljava/lang/String;"));
+        assertEquals(JDWP.Tag.OBJECT, ValueDecoder.objectTag(JDWP.Tag.OBJECT, "Ljava/util/List;"));
+        assertEquals(JDWP.Tag.ARRAY, ValueDecoder.objectTag(JDWP.Tag.ARRAY, "[I"));
+    }
+}